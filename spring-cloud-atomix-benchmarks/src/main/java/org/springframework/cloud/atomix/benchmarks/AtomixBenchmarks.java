@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the given JMH command line arguments and writes the
+ * results as JSON, to {@code jmh-result.json} unless an other file or format is given
+ * with {@code -rff} and {@code -rf}.
+ *
+ * <pre>{@code
+ * java -jar spring-cloud-atomix-benchmarks/target/benchmarks.jar [regexp...] [jmh options]
+ * }</pre>
+ */
+public final class AtomixBenchmarks {
+    private AtomixBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions cli = new CommandLineOptions(args);
+
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            // let the regular jmh main take care of the informational options
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        final Options options = new OptionsBuilder()
+            .parent(cli)
+            .resultFormat(cli.getResultFormat().orElse(ResultFormatType.JSON))
+            .result(cli.getResult().orElse("jmh-result.json"))
+            .build();
+
+        new Runner(options).run();
+    }
+}
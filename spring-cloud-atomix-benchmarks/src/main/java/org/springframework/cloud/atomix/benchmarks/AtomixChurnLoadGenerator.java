@@ -0,0 +1,482 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import io.atomix.cluster.MemberId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConfiguration;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.cloud.atomix.AtomixMembershipChange;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryClient;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.atomix.discovery.AtomixServiceWatch;
+
+/**
+ * Simulates thousands of ephemeral members joining, leaving and updating their metadata
+ * against an in-process data node, e.g. to reproduce a rolling deploy, and reports:
+ *
+ * <ul>
+ *   <li>the membership event throughput, as posted by the cluster and as dispatched to
+ *   the {@link AtomixServiceWatch}</li>
+ *   <li>the propagation delay, from the time a member changes to the time the change
+ *   reaches the {@link AtomixServiceWatch}</li>
+ *   <li>the latency of the discovery lookups made while the membership churns</li>
+ * </ul>
+ *
+ * The members are simulated by {@link SimulatedMembership} so a single JVM can run tens
+ * of thousands of them. It can be run from the benchmarks jar:
+ *
+ * <pre>{@code
+ * java -cp spring-cloud-atomix-benchmarks/target/benchmarks.jar \
+ *     org.springframework.cloud.atomix.benchmarks.AtomixChurnLoadGenerator \
+ *     --initial-members=5000 --join-rate=1000 --leave-rate=1000 --duration=60s
+ * }</pre>
+ */
+public class AtomixChurnLoadGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomixChurnLoadGenerator.class);
+
+    private final Options options;
+    private final Map<MemberId, Long> pending;
+    private final LatencyRecorder propagation;
+    private final LongAdder resyncs;
+
+    public AtomixChurnLoadGenerator(Options options) {
+        this.options = options;
+        this.pending = new ConcurrentHashMap<>();
+        this.propagation = new LatencyRecorder();
+        this.resyncs = new LongAdder();
+    }
+
+    public AtomixChurnReport run() throws InterruptedException {
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.getDispatch().setQueueCapacity(options.getQueueCapacity());
+        configuration.getDispatch().setBatchWindow(options.getBatchWindow());
+
+        final SimulatedMembership membership = new SimulatedMembership(AtomixBenchmarkNode.create(), configuration);
+        final AtomixClient client = membership.getClient();
+
+        client.start();
+
+        final Churn churn = new Churn(membership);
+        for (int i = 0; i < options.getInitialMembers(); i++) {
+            churn.join();
+        }
+
+        final AtomixServiceCatalog catalog = new AtomixServiceCatalog(client, new AtomixDiscoveryConfiguration());
+        final MeasuredServiceWatch watch = new MeasuredServiceWatch(client);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Thread> threads = new ArrayList<>();
+        final List<LatencyRecorder> lookups = new ArrayList<>();
+
+        try {
+            catalog.start();
+            watch.start();
+            pending.clear();
+
+            final AtomixDiscoveryClient discovery = new AtomixDiscoveryClient(catalog);
+
+            for (int i = 0; i < options.getLookupThreads(); i++) {
+                final LatencyRecorder recorder = new LatencyRecorder();
+                final Thread thread = new Thread(() -> lookup(discovery, recorder, running), "atomix-churn-lookup-" + i);
+
+                lookups.add(recorder);
+                threads.add(thread);
+                thread.start();
+            }
+
+            LOGGER.info("Churning {} members for {} ms", membership.size(), options.getDuration().toMillis());
+
+            final long start = System.nanoTime();
+            churn.run(start, start + options.getDuration().toNanos());
+            final long elapsed = System.nanoTime() - start;
+
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            // let the watch catch up so the last changes are accounted for
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (watch.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            final LatencyRecorder lookup = new LatencyRecorder();
+            lookups.forEach(lookup::record);
+
+            return new AtomixChurnReport(
+                Duration.ofNanos(elapsed),
+                membership.size(),
+                churn.joins,
+                churn.leaves,
+                churn.updates,
+                watch.getDispatched(),
+                watch.getOverflows(),
+                resyncs.sum(),
+                propagation.summary(),
+                lookup.summary()
+            );
+        } finally {
+            running.set(false);
+
+            watch.stop();
+            catalog.stop();
+            client.stop();
+        }
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void lookup(AtomixDiscoveryClient discovery, LatencyRecorder recorder, AtomicBoolean running) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (running.get()) {
+            final String serviceId = "service-" + random.nextInt(options.getServices());
+            final long start = System.nanoTime();
+
+            discovery.getInstances(serviceId);
+            recorder.record(System.nanoTime() - start);
+        }
+    }
+
+    private void delivered(Member member, long now) {
+        final Long posted = pending.remove(member.id());
+
+        if (posted != null) {
+            propagation.record(now - posted);
+        }
+    }
+
+    /**
+     * Drives the membership changes at the configured rates from a single thread, as
+     * atomix delivers the membership events.
+     */
+    private final class Churn {
+        private final SimulatedMembership membership;
+        private final List<Member> live;
+        private final Random random;
+        private int next;
+        private long joins;
+        private long leaves;
+        private long updates;
+
+        Churn(SimulatedMembership membership) {
+            this.membership = membership;
+            this.live = new ArrayList<>();
+            this.random = new Random();
+        }
+
+        void run(long start, long deadline) throws InterruptedException {
+            long now = start;
+
+            while (now < deadline) {
+                final double seconds = (now - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+                while (joins < options.getJoinRate() * seconds) {
+                    join();
+                    joins++;
+                }
+                while (leaves < options.getLeaveRate() * seconds) {
+                    leave();
+                    leaves++;
+                }
+                while (updates < options.getUpdateRate() * seconds) {
+                    update();
+                    updates++;
+                }
+
+                Thread.sleep(1);
+                now = System.nanoTime();
+            }
+        }
+
+        void join() {
+            final int id = next++;
+            final Member member = SimulatedMembership.member(
+                "member-" + id,
+                "service-" + (id % options.getServices()),
+                10000 + (id % 50000),
+                Collections.singletonMap("version", "0")
+            );
+
+            live.add(member);
+            post(member);
+            membership.join(member);
+        }
+
+        void leave() {
+            if (!live.isEmpty()) {
+                final Member member = remove(random.nextInt(live.size()));
+
+                post(member);
+                membership.leave(member.id());
+            }
+        }
+
+        void update() {
+            if (!live.isEmpty()) {
+                final int index = random.nextInt(live.size());
+                final Member current = live.get(index);
+                final int version = Integer.parseInt(current.metadata().get("version")) + 1;
+                final Member member = SimulatedMembership.member(
+                    current.id().id(),
+                    current.metadata().get(AtomixConstants.META_SERVICE_ID),
+                    current.address().port(),
+                    Collections.singletonMap("version", Integer.toString(version))
+                );
+
+                live.set(index, member);
+                post(member);
+                membership.update(member);
+            }
+        }
+
+        private void post(Member member) {
+            // the oldest change of the member not yet delivered
+            pending.putIfAbsent(member.id(), System.nanoTime());
+        }
+
+        private Member remove(int index) {
+            final Member member = live.get(index);
+            final Member last = live.remove(live.size() - 1);
+
+            if (index < live.size()) {
+                live.set(index, last);
+            }
+
+            return member;
+        }
+    }
+
+    /**
+     * The service watch, recording when the changes reach it.
+     */
+    private final class MeasuredServiceWatch extends AtomixServiceWatch {
+        private final LongAdder heartbeats;
+
+        MeasuredServiceWatch(AtomixClient client) {
+            super(client);
+
+            this.heartbeats = new LongAdder();
+
+            setApplicationEventPublisher(event -> heartbeats.increment());
+        }
+
+        @Override
+        public void onMembershipChanged(ClusterMembershipEvent event) {
+            delivered(event.subject(), System.nanoTime());
+
+            super.onMembershipChanged(event);
+        }
+
+        @Override
+        protected void onMembershipChanged(AtomixMembershipChange change) {
+            final long now = System.nanoTime();
+
+            change.getAdded().forEach(member -> delivered(member, now));
+            change.getRemoved().forEach(member -> delivered(member, now));
+            change.getUpdated().forEach(member -> delivered(member, now));
+
+            super.onMembershipChanged(change);
+        }
+
+        @Override
+        protected void onMembershipResync() {
+            // the dropped changes never reach the watch
+            resyncs.increment();
+            pending.clear();
+
+            super.onMembershipResync();
+        }
+    }
+
+    // ************************
+    // Options
+    // ************************
+
+    public static class Options {
+        private int initialMembers = 5000;
+        private int services = 50;
+        private double joinRate = 100;
+        private double leaveRate = 100;
+        private double updateRate = 100;
+        private Duration duration = Duration.ofSeconds(30);
+        private int lookupThreads = 2;
+        private int queueCapacity = 1024;
+        private Duration batchWindow = Duration.ZERO;
+
+        public int getInitialMembers() {
+            return initialMembers;
+        }
+
+        public void setInitialMembers(int initialMembers) {
+            this.initialMembers = initialMembers;
+        }
+
+        public int getServices() {
+            return services;
+        }
+
+        public void setServices(int services) {
+            this.services = services;
+        }
+
+        /**
+         * The members joining per second.
+         */
+        public double getJoinRate() {
+            return joinRate;
+        }
+
+        public void setJoinRate(double joinRate) {
+            this.joinRate = joinRate;
+        }
+
+        /**
+         * The members leaving per second.
+         */
+        public double getLeaveRate() {
+            return leaveRate;
+        }
+
+        public void setLeaveRate(double leaveRate) {
+            this.leaveRate = leaveRate;
+        }
+
+        /**
+         * The members updating their metadata per second.
+         */
+        public double getUpdateRate() {
+            return updateRate;
+        }
+
+        public void setUpdateRate(double updateRate) {
+            this.updateRate = updateRate;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Duration duration) {
+            this.duration = duration;
+        }
+
+        public int getLookupThreads() {
+            return lookupThreads;
+        }
+
+        public void setLookupThreads(int lookupThreads) {
+            this.lookupThreads = lookupThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        /**
+         * Parse options given as {@code --name=value}, durations are given as {@code 10s},
+         * {@code 500ms} and so on.
+         */
+        public static Options parse(String... args) {
+            final Options options = new Options();
+
+            for (String arg : args) {
+                final int index = arg.indexOf('=');
+
+                if (!arg.startsWith("--") || index < 0) {
+                    throw new IllegalArgumentException("Invalid option: " + arg);
+                }
+
+                final String name = arg.substring(2, index);
+                final String value = arg.substring(index + 1);
+
+                switch (name) {
+                case "initial-members":
+                    options.setInitialMembers(Integer.parseInt(value));
+                    break;
+                case "services":
+                    options.setServices(Integer.parseInt(value));
+                    break;
+                case "join-rate":
+                    options.setJoinRate(Double.parseDouble(value));
+                    break;
+                case "leave-rate":
+                    options.setLeaveRate(Double.parseDouble(value));
+                    break;
+                case "update-rate":
+                    options.setUpdateRate(Double.parseDouble(value));
+                    break;
+                case "duration":
+                    options.setDuration(DurationStyle.detectAndParse(value));
+                    break;
+                case "lookup-threads":
+                    options.setLookupThreads(Integer.parseInt(value));
+                    break;
+                case "queue-capacity":
+                    options.setQueueCapacity(Integer.parseInt(value));
+                    break;
+                case "batch-window":
+                    options.setBatchWindow(DurationStyle.detectAndParse(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + name);
+                }
+            }
+
+            return options;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final AtomixChurnReport report = new AtomixChurnLoadGenerator(Options.parse(args)).run();
+
+        System.out.println(report);
+        System.out.println(report.toJson());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The outcome of an {@link AtomixChurnLoadGenerator} run, latencies are in microseconds.
+ */
+public final class AtomixChurnReport {
+    private final Duration duration;
+    private final int members;
+    private final long joins;
+    private final long leaves;
+    private final long updates;
+    private final long dispatched;
+    private final long overflows;
+    private final long resyncs;
+    private final LatencyRecorder.Summary propagation;
+    private final LatencyRecorder.Summary lookups;
+
+    AtomixChurnReport(
+            Duration duration,
+            int members,
+            long joins,
+            long leaves,
+            long updates,
+            long dispatched,
+            long overflows,
+            long resyncs,
+            LatencyRecorder.Summary propagation,
+            LatencyRecorder.Summary lookups) {
+
+        this.duration = duration;
+        this.members = members;
+        this.joins = joins;
+        this.leaves = leaves;
+        this.updates = updates;
+        this.dispatched = dispatched;
+        this.overflows = overflows;
+        this.resyncs = resyncs;
+        this.propagation = propagation;
+        this.lookups = lookups;
+    }
+
+    /**
+     * The membership events posted per second.
+     */
+    public double getPostedThroughput() {
+        return (joins + leaves + updates) / seconds();
+    }
+
+    /**
+     * The membership events dispatched to the service watch per second.
+     */
+    public double getDispatchedThroughput() {
+        return dispatched / seconds();
+    }
+
+    public double getPropagationP99() {
+        return propagation.getP99();
+    }
+
+    public double getLookupP99() {
+        return lookups.getP99();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "duration=%d ms, members=%d, joins=%d, leaves=%d, updates=%d%n"
+                + "events: posted=%.0f/s, dispatched=%.0f/s, overflows=%d, resyncs=%d%n"
+                + "propagation: %s%n"
+                + "lookups: %s",
+            duration.toMillis(), members, joins, leaves, updates,
+            getPostedThroughput(), getDispatchedThroughput(), overflows, resyncs,
+            propagation,
+            lookups
+        );
+    }
+
+    public String toJson() {
+        return String.format(
+            Locale.ROOT,
+            "{\"durationMillis\": %d, \"members\": %d, \"joins\": %d, \"leaves\": %d, \"updates\": %d, "
+                + "\"postedPerSecond\": %.1f, \"dispatchedPerSecond\": %.1f, \"overflows\": %d, \"resyncs\": %d, "
+                + "\"propagationMicros\": %s, \"lookupMicros\": %s}",
+            duration.toMillis(), members, joins, leaves, updates,
+            getPostedThroughput(), getDispatchedThroughput(), overflows, resyncs,
+            propagation.toJson(),
+            lookups.toJson()
+        );
+    }
+
+    private double seconds() {
+        return Math.max(1, duration.toNanos()) / 1e9;
+    }
+}
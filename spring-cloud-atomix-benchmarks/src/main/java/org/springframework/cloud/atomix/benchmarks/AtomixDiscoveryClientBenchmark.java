@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.atomix.core.Atomix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryClient;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Measures the {@link AtomixDiscoveryClient} lookups as the number of members grows, the
+ * members are spread over one service every ten members.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomixDiscoveryClientBenchmark {
+    @Param({ "10", "1000", "10000" })
+    private int members;
+
+    private Atomix node;
+    private SimulatedMembership membership;
+    private AtomixServiceCatalog catalog;
+    private AtomixDiscoveryClient client;
+    private int services;
+
+    @Setup
+    public void setUp() {
+        node = AtomixBenchmarkNode.create();
+        membership = new SimulatedMembership(node);
+        membership.getClient().start();
+
+        services = Math.max(1, members / 10);
+
+        for (int i = 0; i < members; i++) {
+            membership.join(SimulatedMembership.member("member-" + i, "service-" + (i % services), 10000 + i, Collections.emptyMap()));
+        }
+
+        catalog = new AtomixServiceCatalog(membership.getClient(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        client = new AtomixDiscoveryClient(catalog);
+    }
+
+    @TearDown
+    public void tearDown() {
+        catalog.stop();
+        membership.getClient().stop();
+    }
+
+    @Benchmark
+    public List<ServiceInstance> getInstances() {
+        return client.getInstances("service-" + ThreadLocalRandom.current().nextInt(services));
+    }
+
+    @Benchmark
+    public List<String> getServices() {
+        return client.getServices();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.RoundRobinRule;
+import com.netflix.loadbalancer.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.atomix.discovery.ribbon.AtomixLatencyAwareRule;
+
+/**
+ * Measures the cost of a server choice of the {@link AtomixLatencyAwareRule} as the number
+ * of servers grows, the round robin rule is measured as a baseline. The time per choice is
+ * expected to stay flat across the server counts.
+ *
+ * <pre>{@code
+ * java -jar spring-cloud-atomix-benchmarks/target/benchmarks.jar AtomixLatencyAwareRuleBenchmark
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomixLatencyAwareRuleBenchmark {
+    @Param({ "10", "100", "1000", "10000" })
+    private int servers;
+
+    private AbstractLoadBalancerRule latencyAware;
+    private AbstractLoadBalancerRule roundRobin;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final List<Server> list = new ArrayList<>(servers);
+
+        for (int i = 0; i < servers; i++) {
+            final Server server = new Server("host-" + i, 8080);
+            server.setAlive(true);
+
+            list.add(server);
+        }
+
+        final BaseLoadBalancer lb = new BaseLoadBalancer();
+        lb.addServers(list);
+
+        final AtomixLatencyAwareRule rule = new AtomixLatencyAwareRule();
+        rule.setLoadBalancer(lb);
+
+        for (Server server : list) {
+            for (int i = 0; i < 10; i++) {
+                rule.noteResponseTime(server, 1 + random.nextInt(100), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        latencyAware = rule;
+
+        roundRobin = new RoundRobinRule();
+        roundRobin.setLoadBalancer(lb);
+    }
+
+    @Benchmark
+    public Server latencyAware() {
+        return latencyAware.choose(null);
+    }
+
+    @Benchmark
+    public Server roundRobin() {
+        return roundRobin.choose(null);
+    }
+}
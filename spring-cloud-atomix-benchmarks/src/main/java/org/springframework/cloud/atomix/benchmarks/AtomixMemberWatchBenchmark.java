@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConfiguration;
+import org.springframework.cloud.atomix.AtomixMemberWatch;
+import org.springframework.cloud.atomix.AtomixMembershipChange;
+
+/**
+ * Measures the cost per event of dispatching a burst of membership events through an
+ * {@link AtomixMemberWatch}, from the atomix listener to the watch callback, with and
+ * without batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomixMemberWatchBenchmark {
+    private static final int BURST = 1000;
+
+    @Param({ "0", "1" })
+    private long batchWindowMillis;
+
+    private SimulatedMembership membership;
+    private Member[] members;
+    private CountingWatch watch;
+
+    @Setup
+    public void setUp() {
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.getDispatch().setQueueCapacity(BURST * 2);
+        configuration.getDispatch().setBatchWindow(Duration.ofMillis(batchWindowMillis));
+
+        membership = new SimulatedMembership(AtomixBenchmarkNode.create(), configuration);
+        membership.getClient().start();
+
+        members = new Member[BURST];
+        for (int i = 0; i < BURST; i++) {
+            members[i] = SimulatedMembership.member("member-" + i, "service", 10000 + i, Collections.emptyMap());
+        }
+
+        watch = new CountingWatch(membership.getClient());
+        watch.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        watch.stop();
+        membership.getClient().stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long dispatch() {
+        final long target = watch.handled.sum() + BURST;
+
+        for (Member member : members) {
+            membership.update(member);
+        }
+
+        long handled;
+        while ((handled = watch.handled.sum()) < target) {
+            LockSupport.parkNanos(1000);
+        }
+
+        return handled;
+    }
+
+    private static final class CountingWatch extends AtomixMemberWatch {
+        private final LongAdder handled = new LongAdder();
+
+        CountingWatch(AtomixClient client) {
+            super(client);
+        }
+
+        @Override
+        protected void onMembershipChanged(ClusterMembershipEvent event) {
+            handled.increment();
+        }
+
+        @Override
+        protected void onMembershipChanged(AtomixMembershipChange change) {
+            handled.add(change.getEvents());
+        }
+    }
+}
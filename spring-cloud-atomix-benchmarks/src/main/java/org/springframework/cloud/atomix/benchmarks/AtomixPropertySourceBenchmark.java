@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.atomix.config.AtomixPropertySource;
+
+/**
+ * Measures the lookups of the {@link AtomixPropertySource} as the number of properties
+ * grows, the properties are spread over ten groups and two contexts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomixPropertySourceBenchmark {
+    @Param({ "100", "10000" })
+    private int properties;
+
+    private AtomixPropertySource source;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        final Map<String, Object> defaults = new HashMap<>();
+        final Map<String, Object> overrides = new HashMap<>();
+
+        names = new String[properties];
+
+        for (int i = 0; i < properties; i++) {
+            names[i] = "group" + (i % 10) + ".property" + i;
+
+            defaults.put(names[i], "default-" + i);
+
+            if (i % 2 == 0) {
+                overrides.put(names[i], "override-" + i);
+            }
+        }
+
+        source = new AtomixPropertySource("atomix", Arrays.asList("benchmark", "application"));
+        source.setProperties("benchmark", overrides);
+        source.setProperties("application", defaults);
+    }
+
+    @Benchmark
+    public Object getProperty() {
+        return source.getProperty(names[ThreadLocalRandom.current().nextInt(properties)]);
+    }
+
+    @Benchmark
+    public Object getMissingProperty() {
+        return source.getProperty("missing.property");
+    }
+
+    @Benchmark
+    public String[] getPropertyNames() {
+        return source.getPropertyNames();
+    }
+
+    @Benchmark
+    public String[] getPropertyNamesByPrefix() {
+        return source.getPropertyNames("group" + ThreadLocalRandom.current().nextInt(10));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.atomix.core.tree.DocumentPath;
+import io.atomix.core.tree.DocumentTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.config.AtomixConfigConfiguration;
+import org.springframework.cloud.atomix.config.AtomixConfigLoader;
+import org.springframework.cloud.atomix.config.AtomixPropertySourceLocator;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Measures the bootstrap load of the configuration from the document tree of the
+ * in-process node.
+ *
+ * Both the default and the application contexts hold {@code depth} levels of nodes, each
+ * level having {@code width} leaf properties and one node leading to the next level, so
+ * a load takes one round trip per level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomixPropertySourceLocatorBenchmark {
+    private static final String APPLICATION = "benchmark";
+
+    @Param({ "1", "4" })
+    private int depth;
+
+    @Param({ "10", "100" })
+    private int width;
+
+    private AtomixClient client;
+    private AtomixPropertySourceLocator locator;
+    private StandardEnvironment environment;
+
+    @Setup
+    public void setUp() {
+        final AtomixConfigConfiguration properties = new AtomixConfigConfiguration();
+        properties.setRoot(UUID.randomUUID().toString());
+
+        client = new AtomixClient(AtomixBenchmarkNode.create());
+        client.start();
+
+        final DocumentTree<String> tree = client.getDocumentTree(properties.getRoot());
+        populate(tree, properties.getDefaultContext());
+        populate(tree, APPLICATION);
+
+        environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(
+            new MapPropertySource("benchmark", Collections.singletonMap("spring.application.name", APPLICATION))
+        );
+
+        locator = new AtomixPropertySourceLocator(new AtomixConfigLoader(client, properties), properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.stop();
+    }
+
+    @Benchmark
+    public PropertySource<?> locate() {
+        return locator.locate(environment);
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void populate(DocumentTree<String> tree, String context) {
+        final List<String> path = new ArrayList<>();
+        path.add("root");
+        path.add(context);
+
+        for (int level = 0; level < depth; level++) {
+            for (int i = 0; i < width; i++) {
+                tree.createRecursive(path(path, "level" + level + ".property" + i), context + "-" + i);
+            }
+
+            path.add("level" + level);
+            tree.createRecursive(DocumentPath.from(path.toArray(new String[path.size()])), context);
+        }
+    }
+
+    private static DocumentPath path(List<String> parent, String name) {
+        final String[] elements = parent.toArray(new String[parent.size() + 1]);
+        elements[parent.size()] = name;
+
+        return DocumentPath.from(elements);
+    }
+}
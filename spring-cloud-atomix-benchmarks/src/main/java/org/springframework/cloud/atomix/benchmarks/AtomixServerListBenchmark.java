@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import io.atomix.core.Atomix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.atomix.discovery.ribbon.AtomixServer;
+import org.springframework.cloud.atomix.discovery.ribbon.AtomixServerList;
+
+/**
+ * Measures the refresh of the ribbon server list of a service as its number of instances
+ * grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomixServerListBenchmark {
+    private static final String SERVICE_ID = "service";
+
+    @Param({ "10", "100", "1000" })
+    private int instances;
+
+    private SimulatedMembership membership;
+    private AtomixServiceCatalog catalog;
+    private AtomixServerList serverList;
+
+    @Setup
+    public void setUp() {
+        final Atomix node = AtomixBenchmarkNode.create();
+
+        membership = new SimulatedMembership(node);
+        membership.getClient().start();
+
+        for (int i = 0; i < instances; i++) {
+            membership.join(SimulatedMembership.member("member-" + i, SERVICE_ID, 10000 + i, Collections.emptyMap()));
+        }
+
+        catalog = new AtomixServiceCatalog(membership.getClient(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        final DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setClientName(SERVICE_ID);
+
+        serverList = new AtomixServerList(catalog);
+        serverList.initWithNiwsConfig(config);
+        serverList.getInitialListOfServers();
+    }
+
+    @TearDown
+    public void tearDown() {
+        catalog.stop();
+        membership.getClient().stop();
+    }
+
+    @Benchmark
+    public List<AtomixServer> getUpdatedListOfServers() {
+        return serverList.getUpdatedListOfServers();
+    }
+}
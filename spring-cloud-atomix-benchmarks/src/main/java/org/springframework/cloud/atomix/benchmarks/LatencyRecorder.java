@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latency samples, in nanoseconds, into a fixed set of log-linear buckets and
+ * computes their percentiles.
+ *
+ * Each power of two is split into {@value #SUB_BUCKETS} linear buckets so percentiles
+ * are reported with a relative error below 1% while the memory used does not grow with
+ * the number of samples. Recording is lock free; the load generator uses one recorder
+ * per thread and merges them at the end of the run.
+ */
+final class LatencyRecorder {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        final long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(index(value));
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    void record(LatencyRecorder other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            final long count = other.counts.get(i);
+
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    long count() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * A summary of the recorded samples, in microseconds.
+     */
+    Summary summary() {
+        final long[] values = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = counts.get(i);
+        }
+
+        return new Summary(values, max.get());
+    }
+
+    // ************************
+    // Buckets
+    // ************************
+
+    /**
+     * Values below {@link #LINEAR_LIMIT} get a bucket each, larger values are bucketed
+     * by their highest {@code SUB_BUCKET_BITS + 1} bits.
+     */
+    private static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * The highest value that falls into the given bucket.
+     */
+    private static long highestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        final int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        final long top = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+
+        return (top << shift) + (1L << shift) - 1;
+    }
+
+    static final class Summary {
+        private final long count;
+        private final double p50;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        private Summary(long[] counts, long max) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+
+            this.count = total;
+            this.p50 = percentile(counts, total, max, 0.5);
+            this.p99 = percentile(counts, total, max, 0.99);
+            this.p999 = percentile(counts, total, max, 0.999);
+            this.max = toMicros(max);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        double getP50() {
+            return p50;
+        }
+
+        double getP99() {
+            return p99;
+        }
+
+        double getP999() {
+            return p999;
+        }
+
+        double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus", count, p50, p99, p999, max);
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"count\": %d, \"p50\": %.1f, \"p99\": %.1f, \"p999\": %.1f, \"max\": %.1f}", count, p50, p99, p999, max);
+        }
+
+        private static double percentile(long[] counts, long total, long max, double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(percentile * total));
+
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= rank) {
+                    return toMicros(Math.min(highestValue(i), max));
+                }
+            }
+
+            return toMicros(max);
+        }
+
+        private static double toMicros(long nanos) {
+            return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.ClusterMembershipEventListener;
+import io.atomix.cluster.ClusterMembershipService;
+import io.atomix.cluster.Member;
+import io.atomix.cluster.MemberId;
+import io.atomix.core.Atomix;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConfiguration;
+import org.springframework.cloud.atomix.AtomixConstants;
+
+/**
+ * A cluster membership simulated on top of an in-process node: the members only exist in
+ * memory and their events are delivered synchronously to the listeners, so thousands of
+ * members can join and leave without starting a node for each of them.
+ *
+ * The {@link AtomixClient} returned by {@link #getClient()} uses the real node for its
+ * lifecycle and primitives and the simulated membership for everything else.
+ */
+public final class SimulatedMembership implements InvocationHandler {
+    private final Member local;
+    private final Map<MemberId, Member> members;
+    private final List<ClusterMembershipEventListener> listeners;
+    private final ClusterMembershipService service;
+    private final AtomixClient client;
+
+    public SimulatedMembership(Atomix node) {
+        this(node, new AtomixConfiguration());
+    }
+
+    public SimulatedMembership(Atomix node, AtomixConfiguration configuration) {
+        this.local = node.membershipService().getLocalMember();
+        this.members = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.service = (ClusterMembershipService) Proxy.newProxyInstance(
+            ClusterMembershipService.class.getClassLoader(),
+            new Class<?>[] { ClusterMembershipService.class },
+            this
+        );
+        this.client = new AtomixClient(node, configuration) {
+            @Override
+            public ClusterMembershipService getMemberhipService() {
+                return service;
+            }
+        };
+    }
+
+    public AtomixClient getClient() {
+        return client;
+    }
+
+    public ClusterMembershipService getService() {
+        return service;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public void join(Member member) {
+        members.put(member.id(), member);
+        post(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_ADDED, member));
+    }
+
+    /**
+     * Replace a member, e.g. with new metadata; as with atomix the change is reported as
+     * the member being added again.
+     */
+    public void update(Member member) {
+        join(member);
+    }
+
+    public void leave(MemberId id) {
+        final Member member = members.remove(id);
+
+        if (member != null) {
+            post(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_REMOVED, member));
+        }
+    }
+
+    /**
+     * Create a member registered as an instance of the given service.
+     */
+    public static Member member(String id, String serviceId, int port, Map<String, String> metadata) {
+        final Map<String, String> answer = new HashMap<>(metadata);
+        answer.put(AtomixConstants.META_SERVICE_ID, serviceId);
+        answer.put(AtomixConstants.META_SERVICE_HOST, "localhost");
+        answer.put(AtomixConstants.META_SERVICE_PORT, Integer.toString(port));
+
+        return Member.builder(id)
+            .withAddress("localhost", port)
+            .withType(Member.Type.EPHEMERAL)
+            .withMetadata(answer)
+            .build();
+    }
+
+    // ************************
+    // ClusterMembershipService
+    // ************************
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+        case "getLocalMember":
+            return local;
+        case "getMembers":
+            final Set<Member> answer = new HashSet<>(members.values());
+            answer.add(local);
+            return answer;
+        case "getMember":
+            return local.id().equals(args[0]) ? local : members.get(args[0]);
+        case "addListener":
+            listeners.add((ClusterMembershipEventListener) args[0]);
+            return null;
+        case "removeListener":
+            listeners.remove(args[0]);
+            return null;
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "toString":
+            return "SimulatedMembership{members=" + members.size() + "}";
+        default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void post(ClusterMembershipEvent event) {
+        for (ClusterMembershipEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.io.Serializable;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.atomix.core.map.ConsistentMap;
+import io.atomix.core.map.MapEvent;
+import io.atomix.core.map.MapEventListener;
+import io.atomix.utils.time.Versioned;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+/**
+ * A {@link org.springframework.cache.Cache} backed by an atomix {@link ConsistentMap}.
+ *
+ * Keys are stored as their string representation, or serialized if they do not have a
+ * stable one, prefixed by the name of their class so keys of different types with the
+ * same representation, such as {@code "42"} and {@code 42}, never collide. Values are
+ * stored with java serialization.
+ * When enabled, a local near-cache keeps the entries read or written on this node so hot
+ * entries are served without a round trip; it is kept consistent by the events of the
+ * map, which invalidate the entries changed by any node, and bounded by size and time to
+ * live.
+ */
+public class AtomixCache extends AbstractValueAdaptingCache implements MapEventListener<String, byte[]> {
+    private static final ClassValue<KeyFormat> KEY_FORMATS = new ClassValue<KeyFormat>() {
+        @Override
+        protected KeyFormat computeValue(Class<?> type) {
+            return KeyFormat.of(type);
+        }
+    };
+
+    private final String name;
+    private final ConsistentMap<String, byte[]> map;
+    private final AtomixNearCache nearCache;
+    private final Converter<Object, byte[]> serializer;
+    private final Converter<byte[], Object> deserializer;
+    private final LongAdder nearHits;
+    private final LongAdder remoteHits;
+    private final LongAdder misses;
+    private final LongAdder puts;
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads;
+
+    public AtomixCache(String name, ConsistentMap<String, byte[]> map, AtomixCacheConfiguration.NearCache nearCache, boolean allowNullValues) {
+        this(name, map, nearCache, allowNullValues, null);
+    }
+
+    public AtomixCache(String name, ConsistentMap<String, byte[]> map, AtomixCacheConfiguration.NearCache nearCache, boolean allowNullValues, ClassLoader classLoader) {
+        super(allowNullValues);
+
+        this.name = Objects.requireNonNull(name);
+        this.map = Objects.requireNonNull(map);
+        this.nearCache = nearCache != null && nearCache.isEnabled()
+            ? new AtomixNearCache(nearCache.getMaxSize(), nearCache.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+            : null;
+        this.serializer = new SerializingConverter();
+        this.deserializer = classLoader != null ? new DeserializingConverter(classLoader) : new DeserializingConverter();
+        this.nearHits = new LongAdder();
+        this.remoteHits = new LongAdder();
+        this.misses = new LongAdder();
+        this.puts = new LongAdder();
+        this.loads = new ConcurrentHashMap<>();
+
+        if (this.nearCache != null) {
+            this.map.addListener(this);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ConsistentMap<String, byte[]> getNativeCache() {
+        return map;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        final String id = toKey(key);
+        long token = 0;
+
+        if (nearCache != null) {
+            final Object value = nearCache.get(id);
+            if (value != null) {
+                nearHits.increment();
+                return value;
+            }
+
+            token = nearCache.reserve(id);
+        }
+
+        Object value = null;
+
+        try {
+            final Versioned<byte[]> versioned = map.get(id);
+
+            if (versioned == null || versioned.value() == null) {
+                misses.increment();
+                return null;
+            }
+
+            remoteHits.increment();
+
+            value = deserializer.convert(versioned.value());
+
+            if (nearCache != null && nearCache.putIfReserved(id, token, value, versioned.version())) {
+                token = 0;
+            }
+
+            return value;
+        } finally {
+            if (nearCache != null) {
+                nearCache.release(id, token);
+            }
+        }
+    }
+
+    /**
+     * Load the value if not cached, the loads of the same key on this node are serialized
+     * and an other node may win the race, in which case its value is returned.
+     *
+     * The map is read once: a load that starts right after an other one of the same key
+     * completed calls the loader again, the value stored first is returned anyway.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        final ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        final String id = toKey(key);
+        final CompletableFuture<Object> load = new CompletableFuture<>();
+        final CompletableFuture<Object> inFlight = loads.putIfAbsent(id, load);
+
+        if (inFlight != null) {
+            return (T) await(inFlight);
+        }
+
+        try {
+            final Object value = load(key, valueLoader);
+
+            load.complete(value);
+
+            return (T) value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(id, load);
+        }
+    }
+
+    /**
+     * Store the value, it is kept in the near-cache unless the key is changed by a more
+     * recent write of an other node in the meantime.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        final String id = toKey(key);
+        final Object storeValue = toStoreValue(value);
+        final byte[] bytes = serializer.convert(storeValue);
+        long token = nearCache != null ? nearCache.reserveFresh(id) : 0;
+
+        try {
+            final Versioned<byte[]> written = map.putAndGet(id, bytes);
+            puts.increment();
+
+            if (nearCache != null && written != null && nearCache.putIfReserved(id, token, storeValue, written.version())) {
+                token = 0;
+            }
+        } finally {
+            if (nearCache != null) {
+                nearCache.release(id, token);
+            }
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        final String id = toKey(key);
+        final Versioned<byte[]> previous = map.putIfAbsent(id, serializer.convert(toStoreValue(value)));
+
+        if (previous != null && previous.value() != null) {
+            return toValueWrapper(deserializer.convert(previous.value()));
+        }
+
+        puts.increment();
+        invalidate(id);
+
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        final String id = toKey(key);
+
+        map.remove(id);
+        invalidate(id);
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+
+        if (nearCache != null) {
+            nearCache.clear();
+        }
+    }
+
+    @Override
+    public void event(MapEvent<String, byte[]> event) {
+        if (nearCache == null) {
+            return;
+        }
+
+        final Versioned<byte[]> value = event.newValue();
+
+        // the entries written by this node are not dropped by the event of their own write
+        if (value != null) {
+            nearCache.invalidate(event.key(), value.version());
+        } else {
+            nearCache.invalidate(event.key());
+        }
+    }
+
+    /**
+     * Stop listening to the changes of the map.
+     */
+    public void close() {
+        if (nearCache != null) {
+            map.removeListener(this);
+            nearCache.clear();
+        }
+    }
+
+    // ************************
+    // Statistics
+    // ************************
+
+    /**
+     * The lookups served by the near-cache.
+     */
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    /**
+     * The lookups served by the atomix map.
+     */
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    /**
+     * The number of entries of the near-cache or null if disabled.
+     */
+    public Long getNearCacheSize() {
+        return nearCache != null ? Long.valueOf(nearCache.size()) : null;
+    }
+
+    /**
+     * The entries evicted from the near-cache by expiration or size or null if disabled.
+     */
+    public Long getNearCacheEvictions() {
+        return nearCache != null ? Long.valueOf(nearCache.evictions()) : null;
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void invalidate(String id) {
+        if (nearCache != null) {
+            nearCache.invalidate(id);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        final Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Throwable e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        // an other node may have loaded the value in the meantime
+        final ValueWrapper previous = putIfAbsent(key, value);
+
+        return previous != null ? previous.get() : value;
+    }
+
+    private static Object await(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * The key of the entry in the atomix map, the same on every node: the name of the class
+     * of the key followed by the string representation of the key, for strings and keys
+     * with their own, or its serialized form for other serializable keys and composite
+     * keys, which embed the string representation of their elements.
+     *
+     * @throws IllegalArgumentException if the key has no stable representation.
+     */
+    private String toKey(Object key) {
+        final Class<?> type = key.getClass();
+
+        switch (KEY_FORMATS.get(type)) {
+        case STRING:
+            return type.getName() + ':' + key.toString();
+        case SERIALIZED:
+            try {
+                return '@' + Base64.getEncoder().encodeToString(serializer.convert(key));
+            } catch (SerializationFailedException e) {
+                throw new IllegalArgumentException("The key " + key + " of cache " + name + " can not be serialized", e);
+            }
+        default:
+            throw new IllegalArgumentException(
+                "The key of type " + type.getName() + " of cache " + name + " is neither serializable nor defines its own toString()");
+        }
+    }
+
+    /**
+     * How the keys of a class are stored, computed once per class. Serialized keys are
+     * prefixed with a character that can not start a class name so the two formats never
+     * collide.
+     */
+    private enum KeyFormat {
+        STRING,
+        SERIALIZED,
+        UNSUPPORTED;
+
+        static KeyFormat of(Class<?> type) {
+            if (!SimpleKey.class.isAssignableFrom(type) && hasOwnToString(type)) {
+                return STRING;
+            }
+            if (Serializable.class.isAssignableFrom(type)) {
+                return SERIALIZED;
+            }
+
+            return UNSUPPORTED;
+        }
+
+        private static boolean hasOwnToString(Class<?> type) {
+            try {
+                return type.getMethod("toString").getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    }
+}
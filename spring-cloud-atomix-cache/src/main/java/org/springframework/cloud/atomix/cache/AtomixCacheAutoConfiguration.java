@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheAspectSupport;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sets up an {@link AtomixCacheManager} when caching is enabled and no other cache
+ * manager is defined.
+ */
+@Configuration
+@ConditionalOnAtomixCacheEnabled
+@ConditionalOnClass(CacheManager.class)
+@ConditionalOnBean(CacheAspectSupport.class)
+@AutoConfigureBefore(CacheAutoConfiguration.class)
+@EnableConfigurationProperties(AtomixCacheConfiguration.class)
+public class AtomixCacheAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(CacheManager.class)
+    public AtomixCacheManager cacheManager(AtomixClient client, AtomixCacheConfiguration configuration) {
+        return new AtomixCacheManager(client, configuration);
+    }
+
+    @Configuration
+    @ConditionalOnClass({ MeterRegistry.class, CacheMeterBinderProvider.class })
+    protected static class AtomixCacheMetricsConfig {
+        @Bean
+        @ConditionalOnMissingBean
+        public AtomixCacheMeterBinderProvider atomixCacheMeterBinderProvider() {
+            return new AtomixCacheMeterBinderProvider();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Defines configuration for the atomix cache manager.
+ */
+@ConfigurationProperties("spring.cloud.atomix.cache")
+public class AtomixCacheConfiguration {
+    /**
+     * Is the atomix cache manager enabled.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The prefix of the name of the atomix maps backing the caches.
+     */
+    private String prefix = "cache-";
+
+    /**
+     * The caches to create on startup.
+     */
+    private List<String> cacheNames = new ArrayList<>();
+
+    /**
+     * Create the caches that are not listed in the cache names on demand.
+     */
+    private boolean dynamic = true;
+
+    /**
+     * Allow caching null values.
+     */
+    private boolean allowNullValues = true;
+
+    /**
+     * The local near-cache kept on each node.
+     */
+    private NearCache nearCache = new NearCache();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public List<String> getCacheNames() {
+        return cacheNames;
+    }
+
+    public void setCacheNames(List<String> cacheNames) {
+        this.cacheNames = cacheNames;
+    }
+
+    public boolean isDynamic() {
+        return dynamic;
+    }
+
+    public void setDynamic(boolean dynamic) {
+        this.dynamic = dynamic;
+    }
+
+    public boolean isAllowNullValues() {
+        return allowNullValues;
+    }
+
+    public void setAllowNullValues(boolean allowNullValues) {
+        this.allowNullValues = allowNullValues;
+    }
+
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public static class NearCache {
+        /**
+         * Keep a local copy of the entries read or written on this node.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The max number of entries per cache, the least recently used ones are evicted
+         * first.
+         */
+        private int maxSize = 10000;
+
+        /**
+         * How long an entry is kept after it has been written locally; zero keeps it
+         * until it is evicted or invalidated.
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.cloud.atomix.AtomixClient;
+
+/**
+ * A {@link org.springframework.cache.CacheManager} creating an {@link AtomixCache} per
+ * cache name, each backed by the atomix map named after the configured prefix and the
+ * cache name.
+ *
+ * The configured cache names are created on startup, the other ones on first use unless
+ * dynamic creation is disabled.
+ */
+public class AtomixCacheManager extends AbstractCacheManager implements BeanClassLoaderAware, DisposableBean {
+    private final AtomixClient client;
+    private final AtomixCacheConfiguration configuration;
+    private ClassLoader classLoader;
+
+    public AtomixCacheManager(AtomixClient client, AtomixCacheConfiguration configuration) {
+        this.client = Objects.requireNonNull(client);
+        this.configuration = Objects.requireNonNull(configuration);
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        final List<Cache> caches = new ArrayList<>();
+
+        for (String name : configuration.getCacheNames()) {
+            caches.add(createCache(name));
+        }
+
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return configuration.isDynamic() ? createCache(name) : null;
+    }
+
+    @Override
+    public void destroy() {
+        for (String name : getCacheNames()) {
+            final Cache cache = lookupCache(name);
+
+            if (cache instanceof AtomixCache) {
+                ((AtomixCache) cache).close();
+            }
+        }
+    }
+
+    protected AtomixCache createCache(String name) {
+        return new AtomixCache(
+            name,
+            client.getConsistentMap(configuration.getPrefix() + name),
+            configuration.getNearCache(),
+            configuration.isAllowNullValues(),
+            classLoader
+        );
+    }
+}
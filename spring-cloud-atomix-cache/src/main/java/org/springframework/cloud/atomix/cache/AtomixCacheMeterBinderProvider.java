@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+/**
+ * Exposes the statistics of the {@link AtomixCache}s through the spring boot cache
+ * metrics: the hits include both the near-cache and the atomix map ones, the near-cache
+ * hits are also reported on their own.
+ */
+public class AtomixCacheMeterBinderProvider implements CacheMeterBinderProvider<AtomixCache> {
+    @Override
+    public MeterBinder getMeterBinder(AtomixCache cache, Iterable<Tag> tags) {
+        return new AtomixCacheMetrics(cache, tags);
+    }
+
+    private static final class AtomixCacheMetrics extends CacheMeterBinder {
+        private final AtomixCache cache;
+
+        AtomixCacheMetrics(AtomixCache cache, Iterable<Tag> tags) {
+            super(cache, cache.getName(), tags);
+
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long size() {
+            return cache.getNearCacheSize();
+        }
+
+        @Override
+        protected long hitCount() {
+            return cache.getNearHits() + cache.getRemoteHits();
+        }
+
+        @Override
+        protected long missCount() {
+            return cache.getMisses();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            return cache.getNearCacheEvictions();
+        }
+
+        @Override
+        protected long putCount() {
+            return cache.getPuts();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            FunctionCounter.builder("cache.near.hits", cache, AtomixCache::getNearHits)
+                .tags(getTagsWithCacheName())
+                .description("The number of times cache lookups have been served by the local near-cache")
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded local copy of the entries of an {@link AtomixCache}: entries expire after the
+ * configured time to live and the least recently used ones are evicted once the max size
+ * is reached.
+ *
+ * The near-cache is only an optimization, its entries are invalidated by the events of
+ * the backing map. A value read from, or written to, the map is stored only if its key
+ * has not been changed by a later write in the meantime: the reader
+ * {@link #reserve(String) reserves} the key before reading, an invalidation of the key
+ * records its version in the reservation and the value is stored only if it is at least
+ * as recent, see {@link #putIfReserved(String, long, Object, long)}. The versions are
+ * the ones of the backing map, which increase with each change of the map.
+ */
+final class AtomixNearCache {
+    private final int maxSize;
+    private final long ttl;
+    private final LongSupplier ticker;
+    private final Map<String, Entry> entries;
+    private long tokens;
+    private long evictions;
+
+    AtomixNearCache(int maxSize, long ttl, TimeUnit unit) {
+        this(maxSize, ttl, unit, System::nanoTime);
+    }
+
+    AtomixNearCache(int maxSize, long ttl, TimeUnit unit, LongSupplier ticker) {
+        this.maxSize = maxSize;
+        this.ttl = unit.toNanos(ttl);
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > AtomixNearCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The value stored for the key, null if not cached, reserved or expired.
+     */
+    synchronized Object get(String key) {
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+        if (ttl > 0 && ticker.getAsLong() - entry.expires >= 0) {
+            entries.remove(key);
+
+            if (entry.token == 0) {
+                evictions++;
+            }
+
+            return null;
+        }
+
+        return entry.token == 0 ? entry.value : null;
+    }
+
+    synchronized void put(String key, Object value, long version) {
+        entries.put(key, new Entry(value, 0, expiration(), version));
+    }
+
+    /**
+     * Reserve the key before reading its value from the backing map and return the token
+     * to store it with, 0 if the key already holds a value. A pending reservation is
+     * shared by the concurrent readers of the key.
+     */
+    synchronized long reserve(String key) {
+        final Entry entry = entries.get(key);
+
+        if (entry != null && entry.token != 0 && (ttl <= 0 || ticker.getAsLong() - entry.expires < 0)) {
+            return entry.token;
+        }
+        if (get(key) != null) {
+            return 0;
+        }
+
+        return newReservation(key);
+    }
+
+    /**
+     * Reserve the key before writing its value to the backing map, unlike
+     * {@link #reserve(String)} the reservation is never shared and the cached value, or
+     * the pending reservation of the readers, is dropped.
+     */
+    synchronized long reserveFresh(String key) {
+        entries.remove(key);
+
+        return newReservation(key);
+    }
+
+    /**
+     * Store the value read from, or written to, the backing map with the given version if
+     * the key is still reserved with the given token and the key has not been invalidated
+     * by a more recent version since the reservation.
+     */
+    synchronized boolean putIfReserved(String key, long token, Object value, long version) {
+        final Entry entry = entries.get(key);
+
+        if (token == 0 || entry == null || entry.token != token || version < entry.version) {
+            return false;
+        }
+
+        put(key, value, version);
+
+        return true;
+    }
+
+    /**
+     * Drop the reservation of the key, if still held with the given token.
+     */
+    synchronized void release(String key, long token) {
+        final Entry entry = entries.get(key);
+
+        if (token != 0 && entry != null && entry.token == token) {
+            entries.remove(key);
+        }
+    }
+
+    synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Invalidate the key for a change of the backing map to the given version: a cached
+     * value is dropped unless at least as recent and a reservation records the version so
+     * only a value at least as recent can be stored with it.
+     */
+    synchronized void invalidate(String key, long version) {
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.token == 0) {
+            if (entry.version < version) {
+                entries.remove(key);
+            }
+        } else if (entry.version < version) {
+            entries.put(key, new Entry(null, entry.token, entry.expires, version));
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The number of entries evicted because expired or because of the size limit.
+     */
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    private long newReservation(String key) {
+        final long token = ++tokens;
+        entries.put(key, new Entry(null, token, expiration(), Long.MIN_VALUE));
+
+        return token;
+    }
+
+    private long expiration() {
+        return ttl > 0 ? ticker.getAsLong() + ttl : 0;
+    }
+
+    /**
+     * A cached value and its version or, if the token is not 0, the reservation of a
+     * reader or writer and the most recent version the key has been invalidated for.
+     */
+    private static final class Entry {
+        private final Object value;
+        private final long token;
+        private final long expires;
+        private final long version;
+
+        Entry(Object value, long token, long expires, long version) {
+            this.value = value;
+            this.token = token;
+            this.expires = expires;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.util.UUID;
+
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cloud.atomix.AtomixAutoConfiguration;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixCacheAutoConfigurationTest {
+    private AtomixClient bootstrap;
+
+    // *****************
+    // Test setup
+    // *****************
+
+    @Before
+    public void setUp() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        bootstrap = new AtomixClient(
+            Atomix.builder()
+                .withLocalMember(
+                    Member.builder("_test-service")
+                        .withAddress("localhost:" + port)
+                        .withType(Member.Type.PERSISTENT)
+                        .build())
+                .withMembers(
+                    Member.builder("_test-service")
+                        .withType(Member.Type.PERSISTENT)
+                        .withAddress("localhost:" + port)
+                        .build())
+                .withProfiles(
+                    Profile.DATA_GRID
+                )
+                .build()
+        );
+
+        bootstrap.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (bootstrap != null) {
+            bootstrap.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void cacheManagerIsBackedByAtomix() {
+        final String prefix = UUID.randomUUID().toString() + "-";
+
+        contextRunner()
+            .withPropertyValues(
+                "spring.cloud.atomix.cache.prefix=" + prefix,
+                "spring.cloud.atomix.cache.cache-names=c1"
+            )
+            .run(context -> {
+                assertThat(context).hasSingleBean(AtomixCacheManager.class);
+
+                final CacheManager manager = context.getBean(CacheManager.class);
+                final Cache cache = manager.getCache("c1");
+
+                assertThat(cache).isInstanceOf(AtomixCache.class);
+                assertThat(manager.getCache("c2")).isInstanceOf(AtomixCache.class);
+
+                cache.put("k1", "v1");
+
+                // keys are stored with the name of their class
+                assertThat(bootstrap.<String, byte[]>getConsistentMap(prefix + "c1").get("java.lang.String:k1")).isNotNull();
+                assertThat(cache.get("k1", String.class)).isEqualTo("v1");
+            });
+    }
+
+    @Test
+    public void cacheManagerBacksOff() {
+        contextRunner()
+            .withUserConfiguration(CacheManagerConfiguration.class)
+            .run(context -> {
+                assertThat(context).hasSingleBean(CacheManager.class);
+                assertThat(context).doesNotHaveBean(AtomixCacheManager.class);
+            });
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private ApplicationContextRunner contextRunner() {
+        final Member member = bootstrap.getLocalMember();
+
+        return new ApplicationContextRunner()
+            .withUserConfiguration(CachingConfiguration.class)
+            .withConfiguration(
+                AutoConfigurations.of(
+                    AtomixAutoConfiguration.class,
+                    AtomixCacheAutoConfiguration.class
+                )
+            )
+            .withPropertyValues(
+                "spring.cloud.atomix.local-member.address=" + "localhost:" + SocketUtils.findAvailableTcpPort(),
+                "spring.cloud.atomix.members[0].address=" + "localhost:" + member.address().port(),
+                "spring.cloud.atomix.members[0].id=" + member.id().id(),
+                "spring.cloud.atomix.members[0].type=" + member.type().name()
+            );
+    }
+
+    @Configuration
+    @EnableCaching
+    protected static class CachingConfiguration {
+    }
+
+    @Configuration
+    protected static class CacheManagerConfiguration {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AtomixCacheTest {
+    private AtomixClient client;
+    private String name;
+    private List<AtomixCache> caches;
+
+    // *****************
+    // Test setup
+    // *****************
+
+    @Before
+    public void setUp() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        this.client = new AtomixClient(Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build()
+        );
+
+        this.client.start();
+        this.name = UUID.randomUUID().toString();
+        this.caches = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        caches.forEach(AtomixCache::close);
+
+        if (client != null) {
+            client.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void nearCacheIsInvalidatedAcrossCaches() throws Exception {
+        final AtomixCache writer = createCache();
+        final AtomixCache reader = createCache();
+
+        writer.put("k1", "v1");
+
+        assertThat(reader.get("k1", String.class)).isEqualTo("v1");
+        assertThat(reader.get("k1", String.class)).isEqualTo("v1");
+        assertThat(reader.getRemoteHits()).isEqualTo(1);
+        assertThat(reader.getNearHits()).isEqualTo(1);
+
+        writer.put("k1", "v2");
+        assertThat(awaitValue(reader, "k1", "v2")).isTrue();
+
+        writer.evict("k1");
+        assertThat(awaitValue(reader, "k1", null)).isTrue();
+    }
+
+    @Test
+    public void putIfAbsentConverges() throws Exception {
+        final AtomixCache first = createCache();
+        final AtomixCache second = createCache();
+        final AtomicInteger loads = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+
+            for (int i = 0; i < 32; i++) {
+                final AtomixCache cache = i % 2 == 0 ? first : second;
+                final String value = "v" + i;
+
+                results.add(executor.submit(() -> {
+                    start.await();
+
+                    return cache.get("k1", () -> {
+                        loads.incrementAndGet();
+                        return value;
+                    });
+                }));
+            }
+
+            start.countDown();
+
+            final String expected = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(expected);
+            }
+
+            // a loader may run again once a load completed but the first value stored wins
+            assertThat(loads.get()).isPositive();
+            assertThat(first.get("k1", () -> "late")).isEqualTo(expected);
+            assertThat(second.get("k1", String.class)).isEqualTo(expected);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void loadsOfDifferentKeysDoNotBlockEachOther() throws Exception {
+        final AtomixCache cache = createCache();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Thread loader = new Thread(() -> cache.get("k1", () -> {
+            loading.countDown();
+            release.await();
+            return "v1";
+        }));
+
+        loader.start();
+
+        try {
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(cache.get("k2", () -> "v2")).isEqualTo("v2");
+        } finally {
+            release.countDown();
+            loader.join();
+        }
+
+        assertThat(cache.get("k1", String.class)).isEqualTo("v1");
+    }
+
+    @Test
+    public void keysWithoutStableRepresentationAreRejected() {
+        final AtomixCache cache = createCache();
+
+        cache.put(new SimpleKey("a", 1), "v1");
+        cache.put(42, "v2");
+
+        assertThat(cache.get(new SimpleKey("a", 1), String.class)).isEqualTo("v1");
+        assertThat(cache.get(42, String.class)).isEqualTo("v2");
+
+        assertThatThrownBy(() -> cache.put(new Object(), "v3"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cache.put(new SimpleKey(new Object()), "v3"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void keysOfDifferentTypesDoNotCollide() {
+        final AtomixCache cache = createCache();
+
+        cache.put("42", "string");
+        cache.put(42, "integer");
+        cache.put(42L, "long");
+
+        assertThat(cache.get("42", String.class)).isEqualTo("string");
+        assertThat(cache.get(42, String.class)).isEqualTo("integer");
+        assertThat(cache.get(42L, String.class)).isEqualTo("long");
+    }
+
+    @Test
+    public void writtenValuesAreServedByTheNearCache() throws Exception {
+        final AtomixCache cache = createCache();
+
+        cache.put("k1", "v1");
+
+        // the event of its own write does not drop the value
+        Thread.sleep(200);
+
+        assertThat(cache.get("k1", String.class)).isEqualTo("v1");
+        assertThat(cache.getNearHits()).isEqualTo(1);
+        assertThat(cache.getRemoteHits()).isEqualTo(0);
+
+        // while a write of an other node does
+        createCache().put("k1", "v2");
+        assertThat(awaitValue(cache, "k1", "v2")).isTrue();
+    }
+
+    @Test
+    public void loadReadsTheMapOnce() {
+        final AtomixCache cache = new AtomixCache(name, client.getConsistentMap(name), null, true);
+
+        caches.add(cache);
+
+        assertThat(cache.get("k1", () -> "v1")).isEqualTo("v1");
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getRemoteHits()).isEqualTo(0);
+
+        assertThat(cache.get("k1", () -> "v2")).isEqualTo("v1");
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getRemoteHits()).isEqualTo(1);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private AtomixCache createCache() {
+        final AtomixCache cache = new AtomixCache(name, client.getConsistentMap(name), new AtomixCacheConfiguration.NearCache(), true);
+
+        caches.add(cache);
+
+        return cache;
+    }
+
+    private static boolean awaitValue(AtomixCache cache, String key, String expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (System.nanoTime() < deadline) {
+            final String value = cache.get(key, String.class);
+
+            if (expected == null ? value == null : expected.equals(value)) {
+                return true;
+            }
+
+            Thread.sleep(10);
+        }
+
+        return false;
+    }
+}
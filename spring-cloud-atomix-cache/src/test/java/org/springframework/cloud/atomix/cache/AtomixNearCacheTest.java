@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixNearCacheTest {
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void testSizeEviction() {
+        final AtomixNearCache cache = new AtomixNearCache(2, 0, TimeUnit.SECONDS, time::get);
+
+        cache.put("k1", "v1", 1);
+        cache.put("k2", "v2", 2);
+
+        // k1 is now the most recently used
+        assertThat(cache.get("k1")).isEqualTo("v1");
+
+        cache.put("k3", "v3", 3);
+
+        assertThat(cache.get("k1")).isEqualTo("v1");
+        assertThat(cache.get("k2")).isNull();
+        assertThat(cache.get("k3")).isEqualTo("v3");
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiration() {
+        final AtomixNearCache cache = new AtomixNearCache(10, 10, TimeUnit.SECONDS, time::get);
+
+        cache.put("k1", "v1", 1);
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertThat(cache.get("k1")).isEqualTo("v1");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(cache.get("k1")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidation() {
+        final AtomixNearCache cache = new AtomixNearCache(10, 0, TimeUnit.SECONDS, time::get);
+
+        cache.put("k1", "v1", 1);
+
+        // a value read before an invalidation is discarded
+        cache.invalidate("k1");
+        final long token = cache.reserve("k1");
+        cache.invalidate("k1");
+
+        assertThat(cache.putIfReserved("k1", token, "stale", 1)).isFalse();
+        assertThat(cache.get("k1")).isNull();
+
+        // the invalidation of an other key does not affect the reservation
+        final long other = cache.reserve("k1");
+        cache.invalidate("k2");
+
+        assertThat(cache.get("k1")).isNull();
+        assertThat(cache.putIfReserved("k1", other, "v2", 2)).isTrue();
+        assertThat(cache.get("k1")).isEqualTo("v2");
+        assertThat(cache.reserve("k1")).isEqualTo(0);
+
+        cache.clear();
+
+        assertThat(cache.get("k1")).isNull();
+    }
+
+    @Test
+    public void testVersionedInvalidation() {
+        final AtomixNearCache cache = new AtomixNearCache(10, 0, TimeUnit.SECONDS, time::get);
+
+        // the event of the write of the cached value, or of an older one, keeps it
+        cache.put("k1", "v2", 2);
+        cache.invalidate("k1", 1);
+        cache.invalidate("k1", 2);
+        assertThat(cache.get("k1")).isEqualTo("v2");
+
+        cache.invalidate("k1", 3);
+        assertThat(cache.get("k1")).isNull();
+
+        // a reservation only accepts a value at least as recent as the invalidations
+        final long token = cache.reserve("k1");
+        cache.invalidate("k1", 5);
+        cache.invalidate("k1", 4);
+
+        assertThat(cache.putIfReserved("k1", token, "v4", 4)).isFalse();
+        assertThat(cache.putIfReserved("k1", token, "v5", 5)).isTrue();
+        assertThat(cache.get("k1")).isEqualTo("v5");
+    }
+
+    @Test
+    public void testReserveFresh() {
+        final AtomixNearCache cache = new AtomixNearCache(10, 0, TimeUnit.SECONDS, time::get);
+
+        cache.put("k1", "v1", 1);
+
+        // a write drops the cached value and the reservation of a pending reader
+        final long reader = cache.reserve("k1");
+        final long writer = cache.reserveFresh("k1");
+
+        assertThat(writer).isNotEqualTo(reader);
+        assertThat(cache.get("k1")).isNull();
+
+        // the event of the write may be received before it completes
+        cache.invalidate("k1", 2);
+
+        assertThat(cache.putIfReserved("k1", reader, "v1", 1)).isFalse();
+        assertThat(cache.putIfReserved("k1", writer, "v2", 2)).isTrue();
+        assertThat(cache.get("k1")).isEqualTo("v2");
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Registers the {@link AtomixClient} of the bootstrap context in the application context.
+ *
+ * The bootstrap context applies its initializers to the application context, so the
+ * client the configuration has been loaded with is a local bean of the application
+ * context: the auto-configuration does not create a second node and the client is
+ * stopped, as a lifecycle bean, when the application context is closed.
+ */
+public class AtomixClientInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+    private final AtomixClient client;
+
+    public AtomixClientInitializer(AtomixClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        final ConfigurableListableBeanFactory factory = context.getBeanFactory();
+
+        if (!factory.containsLocalBean(AtomixConstants.CLIENT_BEAN_NAME)) {
+            factory.registerSingleton(AtomixConstants.CLIENT_BEAN_NAME, client);
+        }
+    }
+}
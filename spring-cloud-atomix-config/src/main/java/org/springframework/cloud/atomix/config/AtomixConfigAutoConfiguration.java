@@ -16,12 +16,17 @@
 
 package org.springframework.cloud.atomix.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.atomix.AtomixClient;
 import org.springframework.cloud.endpoint.RefreshEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
 
 /**
  * Bootstrap Configuration for Atomix Configuration
@@ -33,6 +38,12 @@ import org.springframework.context.annotation.Configuration;
 @EnableConfigurationProperties(AtomixConfigConfiguration.class)
 public class AtomixConfigAutoConfiguration {
 
+    @Bean
+    @ConditionalOnMissingBean
+    public AtomixConfigSnapshotRefresher atomixConfigSnapshotRefresher(AtomixPropertySourceLocator locator) {
+        return new AtomixConfigSnapshotRefresher(locator);
+    }
+
     @Configuration
     @ConditionalOnClass(RefreshEndpoint.class)
     protected static class AtomixConfigRefreshConfiguration {
@@ -40,10 +51,27 @@ public class AtomixConfigAutoConfiguration {
         @ConditionalOnAtomixConfigWatchEnabled
         public AtomixConfigWatcher configWatcher(
                 AtomixClient client,
+                AtomixConfigLoader loader,
                 AtomixConfigConfiguration configProperties,
-                AtomixPropertySourceLocator locator) {
+                AtomixPropertySourceLocator locator,
+                ConfigurableEnvironment environment) {
+
+            return new AtomixConfigWatcher(client, loader, configProperties, locator.getContexts(), environment);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    protected static class AtomixConfigMetricsConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnBean(AtomixConfigLoader.class)
+        public AtomixConfigMetrics atomixConfigMetrics(
+                AtomixClient client,
+                AtomixConfigLoader loader,
+                ObjectProvider<AtomixConfigWatcher> watcher) {
 
-            return new AtomixConfigWatcher(client, configProperties, locator.getContexts());
+            return new AtomixConfigMetrics(client, loader, watcher.getIfAvailable());
         }
     }
 }
@@ -20,34 +20,64 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.atomix.AtomixAutoConfiguration;
 import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConfiguration;
+import org.springframework.cloud.atomix.AtomixConstants;
 import org.springframework.cloud.atomix.ConditionalOnAtomixEnabled;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Import;
 
 /**
  * Bootstrap Configuration for Atomix Configuration
  *
+ * The {@link AtomixClient} created here is used to load the configuration and is then
+ * registered in the application context by the {@link AtomixClientInitializer} so the
+ * application reuses that node instead of creating and joining a second one. When the
+ * configuration is loaded from Atomix the client joins the cluster in background, see
+ * {@link AtomixConfiguration#isAsyncStart()}.
+ *
  * @author Luca Burgazzoli
  */
 @Configuration
 @ConditionalOnAtomixEnabled
-@Import(AtomixAutoConfiguration.class)
-@EnableConfigurationProperties(AtomixConfigConfiguration.class)
+@EnableConfigurationProperties({ AtomixConfiguration.class, AtomixConfigConfiguration.class })
 public class AtomixConfigBootstrapConfiguration {
 
+    @Bean(name = AtomixConstants.CLIENT_BEAN_NAME)
+    @ConditionalOnMissingBean
+    public AtomixClient atomixClient(AtomixConfiguration properties, AtomixConfigConfiguration configProperties) {
+        if (configProperties.isEnabled()) {
+            // loading the configuration is bounded by its own timeouts and may be served
+            // from the snapshot, the bootstrap must not wait for the join
+            properties.setAsyncStart(true);
+        }
+
+        return AtomixAutoConfiguration.createAtomixClient(properties);
+    }
+
+    @Bean
+    public AtomixClientInitializer atomixClientInitializer(AtomixClient client) {
+        return new AtomixClientInitializer(client);
+    }
+
     @Configuration
     @EnableConfigurationProperties
-    @Import(AtomixAutoConfiguration.class)
     @ConditionalOnAtomixConfigEnabled
     protected static class AtomixPropertySourceConfiguration {
 
         @Bean
         @ConditionalOnMissingBean
-        public AtomixPropertySourceLocator atomixPropertySourceLocator(
+        public AtomixConfigLoader atomixConfigLoader(
             AtomixClient client,
             AtomixConfigConfiguration properties) {
-            return new AtomixPropertySourceLocator(client, properties);
+            return new AtomixConfigLoader(client, properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AtomixPropertySourceLocator atomixPropertySourceLocator(
+            AtomixConfigLoader loader,
+            AtomixConfigConfiguration properties) {
+            return new AtomixPropertySourceLocator(loader, properties);
         }
     }
 }
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.atomix.config;
 
+import java.time.Duration;
 
 import javax.validation.constraints.NotEmpty;
 
@@ -50,6 +51,28 @@ public class AtomixConfigConfiguration {
      */
     private boolean failFast = true;
 
+    /**
+     * The maximum time to wait for the properties of a single context to be loaded once
+     * the cluster has been joined.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * The maximum time to wait for the properties of all the contexts to be loaded, the
+     * cluster join included.
+     */
+    private Duration bootstrapTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Local snapshot of the loaded configuration.
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * How configuration changes are propagated to the application.
+     */
+    private Watch watch = new Watch();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -81,4 +104,128 @@ public class AtomixConfigConfiguration {
     public void setFailFast(boolean failFast) {
         this.failFast = failFast;
     }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getBootstrapTimeout() {
+        return bootstrapTimeout;
+    }
+
+    public void setBootstrapTimeout(Duration bootstrapTimeout) {
+        this.bootstrapTimeout = bootstrapTimeout;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Watch getWatch() {
+        return watch;
+    }
+
+    public void setWatch(Watch watch) {
+        this.watch = watch;
+    }
+
+    public static class Snapshot {
+        /**
+         * Write the loaded configuration to a local snapshot and use it when the cluster
+         * can't be reached.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The location of the snapshot, required to enable the snapshot; it should be in
+         * a directory only writable by the application user.
+         */
+        private String path;
+
+        /**
+         * Serve the configuration from the snapshot while it is loaded from the cluster
+         * in the background.
+         */
+        private boolean preload = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public boolean isPreload() {
+            return preload;
+        }
+
+        public void setPreload(boolean preload) {
+            this.preload = preload;
+        }
+    }
+
+    public static class Watch {
+        /**
+         * Apply changes in place and publish the changed keys (DELTA) or trigger a full
+         * refresh of the environment (REFRESH) upon changes.
+         */
+        private Strategy strategy = Strategy.DELTA;
+
+        /**
+         * The quiet period events are merged in before being published, zero disables
+         * merging.
+         */
+        private Duration debounce = Duration.ZERO;
+
+        /**
+         * The maximum time the publication of merged events can be delayed.
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public Duration getDebounce() {
+            return debounce;
+        }
+
+        public void setDebounce(Duration debounce) {
+            this.debounce = debounce;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public enum Strategy {
+            DELTA,
+            REFRESH
+        }
+    }
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.atomix.core.tree.AsyncDocumentTree;
+import io.atomix.core.tree.DocumentPath;
+import io.atomix.core.tree.NoSuchDocumentPathException;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Loads the properties of a config context from the Atomix document tree.
+ *
+ * The subtree of a context is fetched one level at a time: the children of all the nodes
+ * of a level are requested concurrently through the asynchronous document tree API so a
+ * context costs one round trip per level of depth instead of one sequential read per node.
+ * The resulting map is flattened the same way the nodes have always been, i.e. keyed by
+ * node name; the path of the node each key has been read from is kept so a change to a
+ * subtree can be mapped back to the keys it affects.
+ *
+ * As the levels are read in order, when nodes of a context share the same name the
+ * deepest one wins and, among nodes at the same depth, the last one in the order the
+ * children are returned by the tree. Values are read as strings, values stored as bytes
+ * by other clients are decoded as UTF-8.
+ */
+public class AtomixConfigLoader {
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = createTimeouts();
+
+    private final AtomixClient client;
+    private final AtomixConfigConfiguration properties;
+    private final LongAdder roundTrips;
+    private final LongAdder reads;
+    private final LongAdder bytesRead;
+    private final LongAdder readTime;
+    private final LongAdder loads;
+    private final LongAdder loadFailures;
+    private final LongAdder loadTime;
+    private final Map<String, Long> versions;
+    private final Map<String, Map<String, String>> paths;
+
+    public AtomixConfigLoader(AtomixClient client, AtomixConfigConfiguration properties) {
+        this.client = client;
+        this.properties = properties;
+        this.roundTrips = new LongAdder();
+        this.reads = new LongAdder();
+        this.bytesRead = new LongAdder();
+        this.readTime = new LongAdder();
+        this.loads = new LongAdder();
+        this.loadFailures = new LongAdder();
+        this.loadTime = new LongAdder();
+        this.versions = new ConcurrentHashMap<>();
+        this.paths = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Load the flattened properties of the given context.
+     */
+    public Map<String, Object> load(String context) {
+        return loadAsync(context).join();
+    }
+
+    /**
+     * Asynchronously load the flattened properties of the given context.
+     *
+     * Nothing blocks the caller: the load is chained to the cluster join, triggered if
+     * needed, and fails with a {@link TimeoutException} if the context is not loaded
+     * within the configured timeout once the cluster has been joined. Waiting for the
+     * join itself is bounded by the callers, see
+     * {@link AtomixConfigConfiguration#getBootstrapTimeout()}.
+     */
+    public CompletableFuture<Map<String, Object>> loadAsync(String context) {
+        final CompletableFuture<Void> started;
+
+        try {
+            started = client.startAsync();
+        } catch (RuntimeException e) {
+            final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+
+            return future;
+        }
+
+        return started.thenCompose(ignored -> withTimeout(context, load(context, client.<Object>getDocumentTree(this.properties.getRoot()).async())));
+    }
+
+    /**
+     * The version of the given context as of its last load, i.e. the highest version of
+     * the nodes of the context, or 0 if the context has not been loaded.
+     */
+    public long getVersion(String context) {
+        return versions.getOrDefault(context, 0L);
+    }
+
+    /**
+     * The keys of the given context as of its last load indexed by the path, relative to
+     * the context, of the node they have been read from, i.e. {@code a|b} for the node
+     * {@code root|<context>|a|b}, or an empty map if the context has not been loaded.
+     */
+    public Map<String, String> getPaths(String context) {
+        return paths.getOrDefault(context, Collections.emptyMap());
+    }
+
+    /**
+     * The number of batched round trips issued to the cluster.
+     */
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    /**
+     * The number of nodes read from the document tree.
+     */
+    public long getReads() {
+        return reads.sum();
+    }
+
+    /**
+     * The number of bytes, keys and values, read from the document tree.
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * The total time, in nanoseconds, spent waiting for nodes to be read.
+     */
+    public long getReadTime() {
+        return readTime.sum();
+    }
+
+    /**
+     * The number of context loads completed, successfully or not.
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * The number of context loads that failed.
+     */
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    /**
+     * The total time, in nanoseconds, spent loading contexts.
+     */
+    public long getLoadTime() {
+        return loadTime.sum();
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private CompletableFuture<Map<String, Object>> load(String context, AsyncDocumentTree<Object> tree) {
+        final Map<String, Object> properties = new HashMap<>();
+        final Map<String, String> nodes = new HashMap<>();
+        final AtomicLong version = new AtomicLong();
+        final long start = System.nanoTime();
+
+        return loadLevel(tree, Collections.singletonList(context), properties, nodes, version).handle(
+            (ignored, error) -> {
+                loads.increment();
+                loadTime.add(System.nanoTime() - start);
+
+                if (error != null) {
+                    loadFailures.increment();
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                }
+
+                versions.put(context, version.get());
+                paths.put(context, Collections.unmodifiableMap(nodes));
+
+                return Collections.unmodifiableMap(properties);
+            }
+        );
+    }
+
+    private CompletableFuture<Map<String, Object>> withTimeout(String context, CompletableFuture<Map<String, Object>> load) {
+        final Duration timeout = this.properties.getTimeout();
+
+        if (timeout == null || load.isDone()) {
+            return load;
+        }
+
+        final CompletableFuture<Map<String, Object>> answer = new CompletableFuture<>();
+        final ScheduledFuture<?> expiration = TIMEOUTS.schedule(
+            () -> answer.completeExceptionally(new TimeoutException("Context " + context + " not loaded within " + timeout.toMillis() + " ms")),
+            timeout.toNanos(),
+            TimeUnit.NANOSECONDS
+        );
+
+        load.whenComplete(
+            (result, error) -> {
+                expiration.cancel(false);
+
+                if (error != null) {
+                    answer.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                } else {
+                    answer.complete(result);
+                }
+            }
+        );
+
+        return answer;
+    }
+
+    private CompletableFuture<Void> loadLevel(
+            AsyncDocumentTree<Object> tree,
+            List<String> paths,
+            Map<String, Object> properties,
+            Map<String, String> nodes,
+            AtomicLong version) {
+
+        if (paths.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            futures.add(getChildren(tree, path, version));
+        }
+
+        roundTrips.increment();
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenCompose(
+            ignored -> {
+                final List<String> next = new ArrayList<>();
+
+                for (int i = 0; i < paths.size(); i++) {
+                    for (Map.Entry<String, String> entry : futures.get(i).join().entrySet()) {
+                        final String path = paths.get(i) + AtomixConfigConstants.PATH_SEPARATOR + entry.getKey();
+
+                        properties.put(entry.getKey(), entry.getValue());
+                        nodes.put(path.substring(path.indexOf(AtomixConfigConstants.PATH_SEPARATOR) + 1), entry.getKey());
+                        next.add(path);
+                    }
+                }
+
+                return loadLevel(tree, next, properties, nodes, version);
+            }
+        );
+    }
+
+    private CompletableFuture<Map<String, String>> getChildren(AsyncDocumentTree<Object> tree, String path, AtomicLong version) {
+        final String fullPath = "root" + AtomixConfigConstants.PATH_SEPARATOR + path;
+
+        final long start = System.nanoTime();
+
+        reads.increment();
+
+        return tree.getChildren(DocumentPath.from(fullPath)).handle(
+            (children, error) -> {
+                readTime.add(System.nanoTime() - start);
+
+                if (error != null) {
+                    final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+
+                    if (cause instanceof NoSuchDocumentPathException) {
+                        return Collections.emptyMap();
+                    }
+
+                    throw new CompletionException(cause);
+                }
+
+                final Map<String, String> answer = new LinkedHashMap<>();
+
+                children.forEach(
+                    (k, v) -> {
+                        final Object value = v.value();
+
+                        answer.put(k, toValue(value));
+                        version.accumulateAndGet(v.version(), Math::max);
+
+                        bytesRead.add(k.getBytes(StandardCharsets.UTF_8).length);
+                        if (value instanceof byte[]) {
+                            bytesRead.add(((byte[]) value).length);
+                        } else if (value != null) {
+                            bytesRead.add(value.toString().getBytes(StandardCharsets.UTF_8).length);
+                        }
+                    }
+                );
+
+                return answer;
+            }
+        );
+    }
+
+    /**
+     * The property value of a node, values stored as bytes are decoded as UTF-8.
+     */
+    static String toValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        }
+
+        return value.toString();
+    }
+
+    private static ScheduledThreadPoolExecutor createTimeouts() {
+        final CustomizableThreadFactory factory = new CustomizableThreadFactory("atomix-config-timeout-");
+        factory.setDaemon(true);
+
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, factory);
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setKeepAliveTime(1, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+}
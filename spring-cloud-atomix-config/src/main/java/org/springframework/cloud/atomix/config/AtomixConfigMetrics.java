@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixMetrics;
+
+/**
+ * A {@link MeterBinder} exposing the activity of the {@link AtomixConfigLoader} and, if
+ * any, of the {@link AtomixConfigWatcher}: the document tree reads, the context loads and
+ * the refresh and change events published.
+ */
+public class AtomixConfigMetrics implements MeterBinder {
+    private final AtomixClient client;
+    private final AtomixConfigLoader loader;
+    private final AtomixConfigWatcher watcher;
+
+    public AtomixConfigMetrics(AtomixClient client, AtomixConfigLoader loader, AtomixConfigWatcher watcher) {
+        this.client = Objects.requireNonNull(client);
+        this.loader = Objects.requireNonNull(loader);
+        this.watcher = watcher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        final Tags tags = AtomixMetrics.tags(client);
+
+        FunctionTimer.builder("atomix.config.reads", loader, AtomixConfigLoader::getReads, AtomixConfigLoader::getReadTime, TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .description("The document tree nodes read")
+            .register(registry);
+
+        FunctionCounter.builder("atomix.config.reads.bytes", loader, AtomixConfigLoader::getBytesRead)
+            .tags(tags)
+            .description("The bytes read from the document tree")
+            .register(registry);
+
+        FunctionTimer.builder("atomix.config.loads", loader, AtomixConfigLoader::getLoads, AtomixConfigLoader::getLoadTime, TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .description("The config contexts loaded")
+            .register(registry);
+
+        FunctionCounter.builder("atomix.config.loads.failures", loader, AtomixConfigLoader::getLoadFailures)
+            .tags(tags)
+            .description("The config context loads that failed")
+            .register(registry);
+
+        if (watcher != null) {
+            FunctionCounter.builder("atomix.config.events", watcher, AtomixConfigWatcher::getEvents)
+                .tags(tags)
+                .description("The config change events received")
+                .register(registry);
+
+            FunctionCounter.builder("atomix.config.events.coalesced", watcher, AtomixConfigWatcher::getCoalescedEvents)
+                .tags(tags)
+                .description("The config change events merged into another refresh")
+                .register(registry);
+
+            FunctionCounter.builder("atomix.config.refreshes", watcher, AtomixConfigWatcher::getRefreshes)
+                .tags(tags)
+                .description("The refresh events published")
+                .register(registry);
+
+            FunctionCounter.builder("atomix.config.changes", watcher, AtomixConfigWatcher::getChanges)
+                .tags(tags)
+                .description("The environment change events published")
+                .register(registry);
+
+            FunctionTimer.builder("atomix.config.publish", watcher, AtomixConfigWatcher::getPublishes, AtomixConfigWatcher::getPublishTime, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("The time spent applying and publishing config changes")
+                .register(registry);
+
+            FunctionTimer.builder("atomix.config.dispatch.lag", watcher, AtomixConfigWatcher::getPublishes, AtomixConfigWatcher::getDispatchLag, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("The time config changes waited before being published")
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A local, on disk, copy of the config contexts loaded from Atomix.
+ *
+ * The snapshot is stored in a compact binary format:
+ *
+ * <pre>{@code
+ * int    magic
+ * int    format version
+ * int    number of contexts
+ * for each context:
+ *   string name
+ *   int    number of properties
+ *   for each property:
+ *     string key
+ *     string value (may be null)
+ * }</pre>
+ *
+ * Strings are stored as their UTF-8 length followed by the UTF-8 bytes, a length of -1
+ * denotes a null value. The snapshot is written to a temporary file which is then renamed
+ * so a reader never sees a partially written snapshot.
+ *
+ * Contexts are not versioned: the highest version of the nodes of a context does not
+ * change when a node is removed, so a snapshot is told apart from the live configuration
+ * by comparing their properties.
+ */
+public class AtomixConfigSnapshot {
+    private static final int MAGIC = 0x41434653;
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path path;
+
+    public AtomixConfigSnapshot(Path path) {
+        this.path = Objects.requireNonNull(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Read the contexts stored in the snapshot, if the snapshot does not exist an empty
+     * map is returned.
+     */
+    public Map<String, Map<String, Object>> read() throws IOException {
+        if (!Files.exists(path)) {
+            return Collections.emptyMap();
+        }
+
+        try (InputStream is = Files.newInputStream(path); DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an atomix config snapshot: " + path);
+            }
+
+            final int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported atomix config snapshot format version " + version + ": " + path);
+            }
+
+            final int size = in.readInt();
+            final Map<String, Map<String, Object>> contexts = new LinkedHashMap<>();
+
+            for (int i = 0; i < size; i++) {
+                final String name = readString(in);
+                final int count = in.readInt();
+                final Map<String, Object> properties = new HashMap<>();
+
+                for (int p = 0; p < count; p++) {
+                    properties.put(readString(in), readString(in));
+                }
+
+                contexts.put(name, Collections.unmodifiableMap(properties));
+            }
+
+            return contexts;
+        }
+    }
+
+    /**
+     * Atomically replace the snapshot with the given contexts.
+     */
+    public void write(Map<String, Map<String, Object>> contexts) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+
+        Files.createDirectories(parent);
+
+        final Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(contexts.size());
+
+                for (Map.Entry<String, Map<String, Object>> context : contexts.entrySet()) {
+                    writeString(out, context.getKey());
+                    out.writeInt(context.getValue().size());
+
+                    for (Map.Entry<String, Object> property : context.getValue().entrySet()) {
+                        writeString(out, property.getKey());
+                        writeString(out, Objects.toString(property.getValue(), null));
+                    }
+                }
+            }
+
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
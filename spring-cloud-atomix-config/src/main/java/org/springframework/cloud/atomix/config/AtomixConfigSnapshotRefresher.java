@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.config;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Publishes an {@link EnvironmentChangeEvent} once the configuration served from the
+ * snapshot at boot has been replaced by the one loaded from the cluster, so the beans
+ * bound to the snapshotted values are rebound.
+ */
+public class AtomixConfigSnapshotRefresher implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomixConfigSnapshotRefresher.class);
+
+    private final AtomixPropertySourceLocator locator;
+    private final AtomicBoolean registered;
+    private ApplicationContext context;
+
+    public AtomixConfigSnapshotRefresher(AtomixPropertySourceLocator locator) {
+        this.locator = locator;
+        this.registered = new AtomicBoolean();
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // the events of the child contexts are propagated to this one
+        if (event.getApplicationContext() != context || !registered.compareAndSet(false, true)) {
+            return;
+        }
+
+        locator.getSnapshotReplacement().whenComplete(
+            (keys, error) -> {
+                if (error != null) {
+                    LOGGER.warn("Unable to replace the atomix config served from the snapshot", error);
+                } else if (!keys.isEmpty()) {
+                    LOGGER.debug("Atomix config served from the snapshot replaced, changed keys: {}", keys);
+
+                    context.publishEvent(new EnvironmentChangeEvent(context, keys));
+                }
+            }
+        );
+    }
+}
@@ -16,48 +16,170 @@
 
 package org.springframework.cloud.atomix.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+import io.atomix.core.tree.DocumentPath;
 import io.atomix.core.tree.DocumentTree;
 import io.atomix.core.tree.DocumentTreeEvent;
 import io.atomix.core.tree.DocumentTreeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.cloud.endpoint.event.RefreshEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.Lifecycle;
+import org.springframework.core.env.CompositePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
  * Class that registers a {@link DocumentTreeListener} for each context.
  * It publishes events upon element change in Atomix.
  *
+ * By default each change is applied in place to the affected context of the
+ * {@link AtomixPropertySource} and an {@link EnvironmentChangeEvent} carrying only the changed key is
+ * published, a full {@link RefreshEvent} is published instead when the watch strategy is
+ * set to {@link AtomixConfigConfiguration.Watch.Strategy#REFRESH}.
+ *
+ * When a debounce period is configured, events are collected until no new event has been
+ * received for that period (or the max wait has elapsed) and then published as a single
+ * change carrying the union of the changed keys.
+ *
  * @author Luca Burgazzoli
  */
 public class AtomixConfigWatcher implements Lifecycle, DocumentTreeListener<String>, ApplicationEventPublisherAware {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomixConfigWatcher.class);
+
     private final AtomixClient client;
+    private final AtomixConfigLoader loader;
     private final AtomixConfigConfiguration configProperties;
     private final List<String> contexts;
+    private final ConfigurableEnvironment environment;
     private final AtomicBoolean running;
 
+    private final List<DocumentTreeListener<String>> listeners;
+    private final List<DocumentTreeEvent<String>> pending;
+    private final Map<String, Map<String, String>> nodes;
+    private final LongAdder events;
+    private final LongAdder coalescedEvents;
+    private final LongAdder refreshes;
+    private final LongAdder changes;
+    private final LongAdder publishes;
+    private final LongAdder publishTime;
+    private final LongAdder dispatchLag;
+
     private DocumentTree<String> tree;
     private ApplicationEventPublisher publisher;
 
-    public AtomixConfigWatcher(AtomixClient client, AtomixConfigConfiguration configProperties, List<String> contexts) {
+    // guarded by pending
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> flush;
+    private long pendingSince;
+
+    public AtomixConfigWatcher(
+            AtomixClient client,
+            AtomixConfigLoader loader,
+            AtomixConfigConfiguration configProperties,
+            List<String> contexts,
+            ConfigurableEnvironment environment) {
+
         this.client = client;
+        this.loader = loader;
         this.configProperties = configProperties;
         this.contexts = contexts;
+        this.environment = environment;
         this.running = new AtomicBoolean(false);
+        this.listeners = new ArrayList<>();
+        this.pending = new ArrayList<>();
+        this.nodes = new HashMap<>();
+        this.events = new LongAdder();
+        this.coalescedEvents = new LongAdder();
+        this.refreshes = new LongAdder();
+        this.changes = new LongAdder();
+        this.publishes = new LongAdder();
+        this.publishTime = new LongAdder();
+        this.dispatchLag = new LongAdder();
     }
 
     @Override
     public void event(DocumentTreeEvent<String> event) {
         if (isRunning() && Objects.nonNull(this.publisher)) {
-            this.publisher.publishEvent(new RefreshEvent(this, event, getEventDesc(event)));
+            events.increment();
+
+            if (configProperties.getWatch().getDebounce().isZero()) {
+                publish(Collections.singletonList(event), System.nanoTime());
+            } else {
+                enqueue(event);
+            }
         }
     }
 
+    /**
+     * The number of events received.
+     */
+    public long getEvents() {
+        return events.sum();
+    }
+
+    /**
+     * The number of events that have been merged into the refresh of another event.
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.sum();
+    }
+
+    /**
+     * The number of {@link RefreshEvent}s published.
+     */
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * The number of {@link EnvironmentChangeEvent}s published.
+     */
+    public long getChanges() {
+        return changes.sum();
+    }
+
+    /**
+     * The number of batches of events published.
+     */
+    public long getPublishes() {
+        return publishes.sum();
+    }
+
+    /**
+     * The total time, in nanoseconds, spent applying and publishing batches of events.
+     */
+    public long getPublishTime() {
+        return publishTime.sum();
+    }
+
+    /**
+     * The total time, in nanoseconds, batches of events have waited before being
+     * published, measured from the first event of the batch.
+     */
+    public long getDispatchLag() {
+        return dispatchLag.sum();
+    }
+
     @Override
     public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
         this.publisher = publisher;
@@ -66,12 +188,27 @@ public class AtomixConfigWatcher implements Lifecycle, DocumentTreeListener<Stri
     @Override
     public void start() {
         if (this.running.compareAndSet(false, true)) {
+            if (!configProperties.getWatch().getDebounce().isZero()) {
+                synchronized (this.pending) {
+                    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                        new CustomizableThreadFactory("atomix-config-watcher-")
+                    );
+                }
+            }
+
             this.tree = client.getDocumentTree(configProperties.getRoot());
-            this.tree.addListener(this);
 
-            //for (String context: contexts) {
-            //    this.tree.addListener(DocumentPath.from("root" + AtomixConstants.PATH_SEPARATOR + context), this);
-            //}
+            // Only listen to the contexts that have been loaded so events related to
+            // other applications are not even sent to this member. A distinct listener
+            // is registered per path so each registration can be removed on its own.
+            for (String context: new ArrayList<>(contexts)) {
+                final DocumentTreeListener<String> listener = this::event;
+
+                this.tree.addListener(DocumentPath.from("root" + AtomixConfigConstants.PATH_SEPARATOR + context), listener);
+                this.listeners.add(listener);
+            }
+
+            LOGGER.debug("Watching contexts: {}", contexts);
         }
     }
 
@@ -79,9 +216,26 @@ public class AtomixConfigWatcher implements Lifecycle, DocumentTreeListener<Stri
     public void stop() {
         if (this.running.compareAndSet(true, false)) {
             if (this.tree != null) {
-                this.tree.removeListener(this);
+                this.listeners.forEach(this.tree::removeListener);
+            }
+
+            // shut the scheduler down under the same lock events are scheduled with so an
+            // event received while stopping is either scheduled before or dropped
+            synchronized (this.pending) {
+                if (this.scheduler != null) {
+                    this.scheduler.shutdownNow();
+                }
+
+                this.pending.clear();
+                this.flush = null;
+                this.scheduler = null;
             }
 
+            synchronized (this) {
+                this.nodes.clear();
+            }
+
+            this.listeners.clear();
             this.tree = null;
         }
     }
@@ -91,6 +245,197 @@ public class AtomixConfigWatcher implements Lifecycle, DocumentTreeListener<Stri
         return this.running.get();
     }
 
+    /**
+     * Add the event to the pending ones and (re)schedule the refresh at the end of the
+     * quiet period, the refresh is never delayed more than the max wait from the first
+     * pending event.
+     */
+    private void enqueue(DocumentTreeEvent<String> event) {
+        final AtomixConfigConfiguration.Watch watch = configProperties.getWatch();
+
+        synchronized (this.pending) {
+            if (!isRunning() || this.scheduler == null) {
+                return;
+            }
+
+            final long now = System.nanoTime();
+
+            if (this.pending.isEmpty()) {
+                this.pendingSince = now;
+            }
+            if (this.flush != null) {
+                this.flush.cancel(false);
+            }
+
+            this.pending.add(event);
+
+            final long deadline = this.pendingSince + watch.getMaxWait().toNanos();
+            final long delay = Math.min(watch.getDebounce().toNanos(), deadline - now);
+
+            this.flush = this.scheduler.schedule(this::flush, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        final List<DocumentTreeEvent<String>> batch;
+        final long since;
+
+        synchronized (this.pending) {
+            batch = new ArrayList<>(this.pending);
+            since = this.pendingSince;
+
+            this.pending.clear();
+            this.flush = null;
+        }
+
+        if (!batch.isEmpty() && isRunning()) {
+            coalescedEvents.add(batch.size() - 1);
+
+            try {
+                publish(batch, since);
+            } catch (Exception e) {
+                LOGGER.warn("Error publishing changes for {} events", batch.size(), e);
+            }
+        }
+    }
+
+    private void publish(List<DocumentTreeEvent<String>> batch, long receivedAt) {
+        final long start = System.nanoTime();
+
+        dispatchLag.add(start - receivedAt);
+
+        try {
+            doPublish(batch);
+        } finally {
+            publishes.increment();
+            publishTime.add(System.nanoTime() - start);
+        }
+    }
+
+    private void doPublish(List<DocumentTreeEvent<String>> batch) {
+        if (configProperties.getWatch().getStrategy() == AtomixConfigConfiguration.Watch.Strategy.REFRESH) {
+            final DocumentTreeEvent<String> event = batch.get(batch.size() - 1);
+            final String desc = batch.size() == 1
+                ? getEventDesc(event)
+                : "coalesced " + batch.size() + " events, last: " + getEventDesc(event);
+
+            this.publisher.publishEvent(new RefreshEvent(this, batch.size() == 1 ? event : batch, desc));
+            this.refreshes.increment();
+        } else {
+            final Set<String> keys = apply(batch);
+
+            if (!keys.isEmpty()) {
+                this.publisher.publishEvent(new EnvironmentChangeEvent(keys));
+                this.changes.increment();
+            }
+        }
+    }
+
+    /**
+     * Apply the events to the contexts of the {@link AtomixPropertySource}, the updated
+     * contexts are swapped in at once so precedence is resolved once per batch.
+     *
+     * The deletion of a node removes the keys of the node and of all its descendants, the
+     * keys are resolved from the paths of the nodes of the context as of its last load
+     * kept up to date by the applied events.
+     *
+     * @return the changed keys.
+     */
+    private synchronized Set<String> apply(List<DocumentTreeEvent<String>> batch) {
+        final Set<String> keys = new LinkedHashSet<>();
+        final AtomixPropertySource source = findPropertySource();
+
+        if (source == null) {
+            LOGGER.debug("Ignore {} events, no atomix property source found", batch.size());
+            return keys;
+        }
+
+        final Map<String, Map<String, Object>> updates = new HashMap<>();
+
+        for (DocumentTreeEvent<String> event : batch) {
+            final List<String> elements = event.path().pathElements();
+
+            // root|<context>|...|<key>
+            if (elements.size() < 3) {
+                continue;
+            }
+
+            final String context = elements.get(1);
+            final String key = elements.get(elements.size() - 1);
+
+            if (!source.getContexts().contains(context)) {
+                LOGGER.debug("Ignore event for unknown context {}: {}", context, getEventDesc(event));
+                continue;
+            }
+
+            final Map<String, Object> properties = updates.computeIfAbsent(context, c -> new HashMap<>(source.getProperties(c)));
+            final Map<String, String> paths = this.nodes.computeIfAbsent(context, c -> new HashMap<>(loader.getPaths(c)));
+            final String path = String.join(AtomixConfigConstants.PATH_SEPARATOR, elements.subList(2, elements.size()));
+
+            if (event.type() == DocumentTreeEvent.Type.DELETED) {
+                final String prefix = path + AtomixConfigConstants.PATH_SEPARATOR;
+
+                paths.remove(path);
+                paths.entrySet().removeIf(
+                    entry -> {
+                        if (entry.getKey().startsWith(prefix)) {
+                            properties.remove(entry.getValue());
+                            keys.add(entry.getValue());
+                            return true;
+                        }
+
+                        return false;
+                    }
+                );
+
+                properties.remove(key);
+            } else {
+                paths.put(path, key);
+                properties.put(key, event.newValue().map(v -> AtomixConfigLoader.toValue(v.value())).orElse(null));
+            }
+
+            keys.add(key);
+
+            LOGGER.debug("Applied event to context {}: {}", context, getEventDesc(event));
+        }
+
+        if (!updates.isEmpty()) {
+            source.setProperties(updates);
+        }
+
+        return keys;
+    }
+
+    private AtomixPropertySource findPropertySource() {
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            final AtomixPropertySource answer = findPropertySource(source);
+
+            if (answer != null) {
+                return answer;
+            }
+        }
+
+        return null;
+    }
+
+    private AtomixPropertySource findPropertySource(PropertySource<?> source) {
+        if (source instanceof AtomixPropertySource && Objects.equals(AtomixConfigConstants.NAME, source.getName())) {
+            return (AtomixPropertySource) source;
+        }
+
+        if (source instanceof CompositePropertySource) {
+            for (PropertySource<?> nested : ((CompositePropertySource) source).getPropertySources()) {
+                final AtomixPropertySource answer = findPropertySource(nested);
+
+                if (answer != null) {
+                    return answer;
+                }
+            }
+        }
+
+        return null;
+    }
+
     private String getEventDesc(DocumentTreeEvent<String> event) {
         StringBuilder out = new StringBuilder();
         out.append("type=").append(event.type());
@@ -16,49 +16,164 @@
 
 package org.springframework.cloud.atomix.config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
-import io.atomix.core.tree.DocumentPath;
-import io.atomix.core.tree.DocumentTree;
-import io.atomix.core.tree.NoSuchDocumentPathException;
-import org.springframework.cloud.atomix.AtomixClient;
 import org.springframework.core.env.EnumerablePropertySource;
 
-public final class AtomixPropertySource extends EnumerablePropertySource<AtomixClient> {
-    private final Map<String, String> properties;
+/**
+ * The properties of all the config contexts flattened in a single source.
+ *
+ * The precedence among contexts, given by the order of the contexts supplied to the
+ * constructor (most specific first), is resolved once when the properties of a context
+ * are set so a lookup is a single hash map access. The property names are kept in a
+ * precomputed, sorted, array together with an index of the names by dotted prefix so
+ * that the properties under a prefix can be enumerated without scanning every name.
+ *
+ * Null values, such as the ones of the intermediate nodes of the tree, are kept in the
+ * properties of their context but are not exposed as properties of this source.
+ *
+ * The properties of a context can be replaced once the source has been added to the
+ * environment i.e. when a live load completes after the context has been served from a
+ * snapshot or when a change is applied by the {@link AtomixConfigWatcher}.
+ */
+public final class AtomixPropertySource extends EnumerablePropertySource<List<String>> {
+    private static final String[] EMPTY = new String[0];
+
+    private volatile State state;
 
-    public AtomixPropertySource(String context, AtomixClient source, String applicationName) {
-        super(context, source);
+    public AtomixPropertySource(String name, List<String> contexts) {
+        super(name, Collections.unmodifiableList(new ArrayList<>(contexts)));
 
-        this.properties = loadProperties(applicationName);
+        final Map<String, Map<String, Object>> properties = new LinkedHashMap<>();
+        for (String context : contexts) {
+            properties.put(context, Collections.emptyMap());
+        }
+
+        this.state = new State(properties);
     }
 
+    /**
+     * The precomputed names, the returned array is shared and must not be modified.
+     */
     @Override
     public String[] getPropertyNames() {
-        return properties.keySet().toArray(new String[properties.size()]);
+        return state.names;
     }
 
     @Override
     public Object getProperty(String name) {
-        return properties.get(name);
+        return state.merged.get(name);
+    }
+
+    @Override
+    public boolean containsProperty(String name) {
+        return state.merged.containsKey(name);
+    }
+
+    /**
+     * The names of the properties equal to or nested under the given prefix, i.e. for
+     * the prefix {@code a.b} the names {@code a.b} and {@code a.b.c} are returned but
+     * not {@code a.bc}.
+     */
+    public String[] getPropertyNames(String prefix) {
+        final String[] names = state.prefixes.get(prefix);
+
+        return names != null ? names.clone() : EMPTY;
+    }
+
+    /**
+     * Whether any property is equal to or nested under the given prefix.
+     */
+    public boolean containsPrefix(String prefix) {
+        return state.prefixes.containsKey(prefix);
+    }
+
+    /**
+     * The contexts backing this source, most specific first.
+     */
+    public List<String> getContexts() {
+        return getSource();
     }
 
-    private Map<String, String> loadProperties(String applicationName) {
-        final AtomixClient client = super.getSource();
-        final DocumentTree<String> tree = client.getDocumentTree(applicationName);
-
-        try {
-            return tree.getChildren(DocumentPath.from(applicationName)).entrySet().stream()
-                .collect(Collectors.toMap(
-                    e -> e.getKey(),
-                    e -> e.getValue().value()
-                ));
-        } catch(NoSuchDocumentPathException e) {
-            // ignore
+    /**
+     * The properties of the given context or null if the context does not back this source.
+     */
+    public Map<String, Object> getProperties(String context) {
+        return state.contexts.get(context);
+    }
+
+    /**
+     * Replace the properties of the given context.
+     */
+    public void setProperties(String context, Map<String, Object> properties) {
+        setProperties(Collections.singletonMap(context, properties));
+    }
+
+    /**
+     * Replace the properties of the given contexts, the precedence is resolved only once
+     * for all the contexts.
+     */
+    public synchronized void setProperties(Map<String, Map<String, Object>> properties) {
+        final Map<String, Map<String, Object>> contexts = new LinkedHashMap<>(state.contexts);
+
+        for (Map.Entry<String, Map<String, Object>> entry : properties.entrySet()) {
+            if (!contexts.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown context " + entry.getKey() + " for property source " + getName());
+            }
+
+            contexts.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
         }
 
-        return Collections.emptyMap();
+        this.state = new State(contexts);
+    }
+
+    // ************************
+    // State
+    // ************************
+
+    private static final class State {
+        final Map<String, Map<String, Object>> contexts;
+        final Map<String, Object> merged;
+        final String[] names;
+        final Map<String, String[]> prefixes;
+
+        State(Map<String, Map<String, Object>> contexts) {
+            this.contexts = Collections.unmodifiableMap(contexts);
+            this.merged = new HashMap<>();
+
+            for (Map<String, Object> properties : contexts.values()) {
+                for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                    // contexts are iterated from the most specific so the first value wins,
+                    // nodes without a value (i.e. intermediate nodes) do not define a
+                    // property so they never shadow the value of a less specific context
+                    if (entry.getValue() != null && !merged.containsKey(entry.getKey())) {
+                        merged.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            this.names = merged.keySet().toArray(new String[merged.size()]);
+            Arrays.sort(this.names);
+
+            final Map<String, List<String>> index = new HashMap<>();
+            for (String name : names) {
+                for (int i = name.indexOf('.'); i != -1; i = name.indexOf('.', i + 1)) {
+                    index.computeIfAbsent(name.substring(0, i), k -> new ArrayList<>()).add(name);
+                }
+
+                index.computeIfAbsent(name, k -> new ArrayList<>()).add(name);
+            }
+
+            this.prefixes = new HashMap<>(index.size());
+            for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+                this.prefixes.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+            }
+        }
     }
 }
@@ -16,35 +16,37 @@
 
 package org.springframework.cloud.atomix.config;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
-import io.atomix.core.tree.DocumentPath;
-import io.atomix.core.tree.DocumentTree;
-import io.atomix.core.tree.NoSuchDocumentPathException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cloud.atomix.AtomixClient;
 import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
-import org.springframework.core.env.CompositePropertySource;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
-import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.env.PropertySource;
 import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Atomix provides a hierarchical <a href="https://en.wikipedia.org/wiki/Document_Object_Model">document tree</a> data
  * structure to store arbitrary data, such as configuration data. Spring Cloud Atomix Config is an alternative to the
  * <a href="https://github.com/spring-cloud/spring-cloud-config">Config Server and Client</a>.  Configuration is loaded
  * into the Spring Environment during the special "bootstrap" phase.  Configuration is stored in the {@code config}
- * document by default. Multiple {@code PropertySource} instances are created based on the application's name and the
- * active profiles that mimics the Spring Cloud Config order of resolving properties. For example, an application with
- * the name "testApp" and with the "dev" profile will have the following property sources created:
+ * document by default. Multiple contexts are loaded based on the application's name and the active profiles that mimics
+ * the Spring Cloud Config order of resolving properties. For example, an application with the name "testApp" and with
+ * the "dev" profile will load the following contexts:
  *
  * <pre>{@code
  * testApp:dev
@@ -54,23 +56,27 @@ import org.springframework.util.ReflectionUtils;
  * }</pre>
  *
  * </p>
- * The most specific property source is at the top, with the least specific at the bottom. Properties is the {@code config:application}
- * namespace are applicable to all applications using atomix for configuration. Properties in the {@code config/testApp}
- * namespace are only available to the instances of the service named "testApp".
+ * The most specific context is at the top, with the least specific at the bottom. The contexts are flattened in a single
+ * {@link AtomixPropertySource} where the properties of a more specific context override the ones of the less specific.
+ * Properties is the {@code config:application} namespace are applicable to all applications using atomix for
+ * configuration. Properties in the {@code config/testApp} namespace are only available to the instances of the service
+ * named "testApp".
  *
  * @author Luca Burgazzoli
  */
 public class AtomixPropertySourceLocator implements PropertySourceLocator {
     private static final Logger LOGGER = LoggerFactory.getLogger(AtomixPropertySourceLocator.class);
 
-    private final AtomixClient client;
+    private final AtomixConfigLoader loader;
     private final AtomixConfigConfiguration properties;
     private final List<String> contexts;
+    private volatile CompletableFuture<Set<String>> snapshotReplacement;
 
-    public AtomixPropertySourceLocator(AtomixClient client, AtomixConfigConfiguration properties) {
-        this.client = client;
+    public AtomixPropertySourceLocator(AtomixConfigLoader loader, AtomixConfigConfiguration properties) {
+        this.loader = loader;
         this.properties = properties;
         this.contexts = new ArrayList<>();
+        this.snapshotReplacement = CompletableFuture.completedFuture(Collections.emptySet());
     }
 
     @Override
@@ -79,6 +85,8 @@ public class AtomixPropertySourceLocator implements PropertySourceLocator {
             final ConfigurableEnvironment env = (ConfigurableEnvironment) environment;
             final String appName = env.getProperty(AtomixConfigConstants.PROPERTY_SPRING_APPLICATION_NAME, this.properties.getDefaultContext());
 
+            contexts.clear();
+
             // Set-up defaults
             setupContext(contexts, env.getActiveProfiles(), this.properties.getDefaultContext());
 
@@ -87,69 +95,241 @@ public class AtomixPropertySourceLocator implements PropertySourceLocator {
                 setupContext(contexts, env.getActiveProfiles(), appName);
             }
 
-            CompositePropertySource composite = new CompositePropertySource(AtomixConfigConstants.NAME);
             Collections.reverse(contexts);
 
             LOGGER.debug("Context load order: {}", contexts);
 
+            final AtomixPropertySource source = new AtomixPropertySource(AtomixConfigConstants.NAME, contexts);
+            final long start = System.nanoTime();
+
+            // Load all the contexts concurrently
+            final Map<String, CompletableFuture<Map<String, Object>>> futures = new LinkedHashMap<>();
             for (String context : contexts) {
                 LOGGER.debug("Load properties for context: {}", context);
 
+                futures.put(context, loadAsync(context));
+            }
+
+            final AtomixConfigSnapshot snapshot = getSnapshot(appName);
+            final Map<String, Map<String, Object>> snapshotted = readSnapshot(snapshot);
+
+            if (snapshot != null && this.properties.getSnapshot().isPreload() && snapshotted.keySet().containsAll(contexts)) {
+                LOGGER.debug("Serve contexts {} from snapshot {}", contexts, snapshot.getPath());
+
+                final Map<String, Map<String, Object>> preloaded = new LinkedHashMap<>();
+                for (String context : contexts) {
+                    preloaded.put(context, snapshotted.get(context));
+                }
+
+                source.setProperties(preloaded);
+
+                // replace the snapshotted properties once loaded from the cluster
+                final CompletableFuture<Set<String>> replacement = new CompletableFuture<>();
+                this.snapshotReplacement = replacement;
+
+                CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[futures.size()])).whenCompleteAsync(
+                    (ignored, error) -> {
+                        try {
+                            final Set<String> changed = replace(source, futures);
+
+                            // complete once the snapshot is written so it is never older
+                            // than the properties the refresh is published for
+                            writeSnapshot(snapshot, snapshotted, futures);
+                            replacement.complete(changed);
+                        } catch (RuntimeException e) {
+                            replacement.completeExceptionally(e);
+                        }
+                    }
+                );
+
+                return source;
+            }
+
+            // Then flatten them in precedence order, each context load is bounded by its own
+            // timeout once the cluster has been joined while the bootstrap timeout caps the
+            // whole wait, cluster join included
+            final long bootstrapDeadline = start + this.properties.getBootstrapTimeout().toNanos();
+            final Map<String, Map<String, Object>> loaded = new LinkedHashMap<>();
+
+            for (Map.Entry<String, CompletableFuture<Map<String, Object>>> entry : futures.entrySet()) {
+                final String context = entry.getKey();
+                final CompletableFuture<Map<String, Object>> future = entry.getValue();
+
                 try {
-                    composite.addPropertySource(
-                        new MapPropertySource(context, loadProperties(context))
-                    );
+                    loaded.put(context, future.get(Math.max(0, bootstrapDeadline - System.nanoTime()), TimeUnit.NANOSECONDS));
                 } catch (Exception e) {
-                    if (this.properties.isFailFast()) {
-                        ReflectionUtils.rethrowRuntimeException(e);
+                    future.cancel(true);
+
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    final Map<String, Object> fallback = snapshotted.get(context);
+
+                    if (fallback != null) {
+                        LOGGER.warn("Unable to load atomix config from {}, using snapshot {}", context, snapshot.getPath(), cause);
+
+                        loaded.put(context, fallback);
+                    } else if (this.properties.isFailFast()) {
+                        ReflectionUtils.rethrowRuntimeException(cause);
                     } else {
-                        LOGGER.warn("Unable to load atomix config from {} ", context, e);
+                        LOGGER.warn("Unable to load atomix config from {} ", context, cause);
                     }
                 }
             }
 
-            return composite;
+            source.setProperties(loaded);
+
+            if (snapshot != null) {
+                writeSnapshot(snapshot, snapshotted, futures);
+            }
+
+            return source;
         }
 
         return null;
     }
 
-    private void setupContext(List<String> contexts, String[] profiles, String item) {
-        contexts.add(item);
+    private CompletableFuture<Map<String, Object>> loadAsync(String context) {
+        try {
+            return loader.loadAsync(context);
+        } catch (Exception e) {
+            final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
 
-        for (String profile : profiles) {
-            contexts.add(item + AtomixConfigConstants.PROFILE_SEPARATOR + profile);
+            return future;
         }
     }
 
-    private Map<String, Object> loadProperties(String context) {
-        final DocumentTree<String> tree = client.getDocumentTree(this.properties.getRoot());
-        final Map<String, Object> properties = new HashMap<>();
+    private AtomixConfigSnapshot getSnapshot(String appName) {
+        final AtomixConfigConfiguration.Snapshot config = this.properties.getSnapshot();
 
-        traverse(tree, context, properties);
+        if (!config.isEnabled()) {
+            return null;
+        }
 
-        return Collections.unmodifiableMap(properties);
+        // the snapshot is trusted at boot so it is never written to a shared location
+        // such as the temporary directory, the path must be explicitly configured
+        if (!StringUtils.hasText(config.getPath())) {
+            LOGGER.warn("Atomix config snapshot is enabled but no path is set, snapshot disabled for {}", appName);
+            return null;
+        }
+
+        return new AtomixConfigSnapshot(Paths.get(config.getPath()));
     }
 
-    private Map<String, Object> traverse(DocumentTree<String> tree, String path, Map<String, Object> properties) {
-        try {
-            String fullPath = "root" + AtomixConfigConstants.PATH_SEPARATOR + path;
+    private Map<String, Map<String, Object>> readSnapshot(AtomixConfigSnapshot snapshot) {
+        if (snapshot != null) {
+            try {
+                return snapshot.read();
+            } catch (Exception e) {
+                LOGGER.warn("Unable to read atomix config snapshot {}", snapshot.getPath(), e);
+            }
+        }
 
-            tree.getChildren(DocumentPath.from(fullPath)).forEach(
-                (k, v) -> {
-                    properties.put(k, v.value());
+        return Collections.emptyMap();
+    }
 
-                    traverse(tree, path + AtomixConfigConstants.PATH_SEPARATOR + k, properties);
-                }
-            );
-        } catch(NoSuchDocumentPathException e) {
-            // ignore
+    /**
+     * Write the contexts loaded from the cluster to the snapshot, unless they are the
+     * same as the snapshotted ones.
+     */
+    private void writeSnapshot(
+            AtomixConfigSnapshot snapshot,
+            Map<String, Map<String, Object>> snapshotted,
+            Map<String, CompletableFuture<Map<String, Object>>> futures) {
+
+        final Map<String, Map<String, Object>> contexts = new LinkedHashMap<>(snapshotted);
+        final Map<String, Map<String, Object>> loaded = getLoaded(futures);
+
+        contexts.putAll(loaded);
+
+        if (!contexts.equals(snapshotted)) {
+            try {
+                snapshot.write(contexts);
+
+                LOGGER.debug("Wrote atomix config snapshot {} (contexts: {})", snapshot.getPath(), loaded.keySet());
+            } catch (Exception e) {
+                LOGGER.warn("Unable to write atomix config snapshot {}", snapshot.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Replace the properties served from the snapshot with the ones loaded from the
+     * cluster and return the names of the properties whose value changed.
+     */
+    private static Set<String> replace(AtomixPropertySource source, Map<String, CompletableFuture<Map<String, Object>>> futures) {
+        final Map<String, Map<String, Object>> loaded = getLoaded(futures);
+
+        if (loaded.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        final Map<String, Object> before = getProperties(source);
+        source.setProperties(loaded);
+        final Map<String, Object> after = getProperties(source);
+
+        final Set<String> changed = new LinkedHashSet<>();
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name) || !Objects.equals(before.get(name), after.get(name))) {
+                changed.add(name);
+            }
+        }
+        for (String name : after.keySet()) {
+            if (!before.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+
+        LOGGER.debug("Replaced the snapshotted contexts {} (changed: {})", loaded.keySet(), changed);
+
+        return changed;
+    }
+
+    private static Map<String, Map<String, Object>> getLoaded(Map<String, CompletableFuture<Map<String, Object>>> futures) {
+        final Map<String, Map<String, Object>> loaded = new LinkedHashMap<>();
+
+        for (Map.Entry<String, CompletableFuture<Map<String, Object>>> entry : futures.entrySet()) {
+            final CompletableFuture<Map<String, Object>> future = entry.getValue();
+
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                loaded.put(entry.getKey(), future.join());
+            }
+        }
+
+        return loaded;
+    }
+
+    private static Map<String, Object> getProperties(AtomixPropertySource source) {
+        final Map<String, Object> properties = new HashMap<>();
+
+        for (String name : source.getPropertyNames()) {
+            properties.put(name, source.getProperty(name));
         }
 
         return properties;
     }
 
+    private void setupContext(List<String> contexts, String[] profiles, String item) {
+        contexts.add(item);
+
+        for (String profile : profiles) {
+            contexts.add(item + AtomixConfigConstants.PROFILE_SEPARATOR + profile);
+        }
+    }
+
     List<String> getContexts() {
         return contexts;
     }
+
+    /**
+     * A future completed, with the names of the properties that changed, once the
+     * properties served from the snapshot at boot have been replaced by the ones loaded
+     * from the cluster; completed with no names when the snapshot has not been served.
+     */
+    public CompletableFuture<Set<String>> getSnapshotReplacement() {
+        return snapshotReplacement;
+    }
 }
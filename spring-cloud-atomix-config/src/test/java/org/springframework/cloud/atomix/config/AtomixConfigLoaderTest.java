@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import io.atomix.core.tree.DocumentPath;
+import io.atomix.core.tree.DocumentTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixConfigLoaderTest {
+    private static final String APPL_CONTEXT = "application";
+
+    private AtomixClient atomix;
+    private AtomixConfigConfiguration configuration;
+    private AtomixConfigLoader loader;
+
+    // *****************
+    // Test setup
+    // *****************
+
+    @Before
+    public void setUp() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        this.atomix = new AtomixClient(Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build()
+        );
+
+        this.atomix.start();
+
+        this.configuration = new AtomixConfigConfiguration();
+        this.configuration.setRoot(UUID.randomUUID().toString());
+        this.loader = new AtomixConfigLoader(atomix, configuration);
+    }
+
+    @After
+    public void tearDown() {
+        if (this.atomix != null) {
+            this.atomix.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void loadFlattensTheSubtree() {
+        final DocumentTree<String> strings = atomix.getDocumentTree(configuration.getRoot());
+        final DocumentTree<byte[]> bytes = atomix.getDocumentTree(configuration.getRoot());
+
+        strings.createRecursive(path("props.p1"), "v1");
+        strings.createRecursive(path("group", "g1"), "v2");
+        bytes.createRecursive(path("group", "nested", "g2"), "v3".getBytes(StandardCharsets.UTF_8));
+        bytes.createRecursive(path("group", "nested", "g3"), "\u00e8".getBytes(StandardCharsets.UTF_8));
+
+        final Map<String, Object> properties = loader.load(APPL_CONTEXT);
+
+        assertThat(properties).containsEntry("props.p1", "v1");
+        assertThat(properties).containsEntry("g1", "v2");
+        assertThat(properties).containsEntry("g2", "v3");
+        assertThat(properties).containsEntry("g3", "\u00e8");
+        assertThat(properties).containsKeys("group", "nested");
+
+        // one round trip per level, the last one finds no children
+        assertThat(loader.getRoundTrips()).isEqualTo(4);
+        assertThat(loader.getReads()).isEqualTo(7);
+        assertThat(loader.getBytesRead()).isEqualTo(
+            "props.p1".length() + "v1".length()
+                + "group".length()
+                + "g1".length() + "v2".length()
+                + "nested".length()
+                + "g2".length() + "v3".length()
+                + "g3".length() + 2);
+
+        assertThat(loader.getPaths(APPL_CONTEXT)).containsEntry("group|nested|g2", "g2");
+        assertThat(loader.getVersion(APPL_CONTEXT)).isPositive();
+    }
+
+    @Test
+    public void deepestNodeWinsOnCollidingNames() {
+        final DocumentTree<String> tree = atomix.getDocumentTree(configuration.getRoot());
+
+        tree.createRecursive(path("group", "key"), "nested");
+        tree.createRecursive(path("key"), "top");
+        tree.createRecursive(path("other", "deeper", "key"), "deepest");
+
+        assertThat(loader.load(APPL_CONTEXT)).containsEntry("key", "deepest");
+    }
+
+    @Test
+    public void missingContextIsEmpty() {
+        assertThat(loader.load("missing")).isEmpty();
+        assertThat(loader.getLoadFailures()).isEqualTo(0);
+    }
+
+    @Test
+    public void loadAsyncDoesNotWaitForTheJoin() {
+        final AtomixClient unreachable = new AtomixClient(Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-client")
+                    .withAddress("localhost", SocketUtils.findAvailableTcpPort())
+                    .withType(Member.Type.EPHEMERAL)
+                    .build())
+            .withMembers(
+                Member.builder("_test-missing")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + SocketUtils.findAvailableTcpPort())
+                    .build())
+            .withProfiles(
+                Profile.CLIENT
+            )
+            .build()
+        );
+
+        try {
+            final long start = System.nanoTime();
+            final CompletableFuture<Map<String, Object>> future = new AtomixConfigLoader(unreachable, configuration).loadAsync(APPL_CONTEXT);
+
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+            assertThat(future).isNotDone();
+
+            unreachable.stop();
+
+            assertThat(future).isCompletedExceptionally();
+        } finally {
+            unreachable.stop();
+        }
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static DocumentPath path(String... elements) {
+        final String[] path = new String[elements.length + 2];
+        path[0] = "root";
+        path[1] = APPL_CONTEXT;
+        System.arraycopy(elements, 0, path, 2, elements.length);
+
+        return DocumentPath.from(path);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixConfigSnapshotTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadMissingSnapshot() throws Exception {
+        AtomixConfigSnapshot snapshot = new AtomixConfigSnapshot(folder.getRoot().toPath().resolve("missing.snapshot"));
+
+        assertThat(snapshot.read()).isEmpty();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("nested").resolve("test.snapshot");
+        AtomixConfigSnapshot snapshot = new AtomixConfigSnapshot(path);
+
+        Map<String, Object> application = new HashMap<>();
+        application.put("props.p1", "v1");
+        application.put("props.p2", "v2");
+        application.put("props", null);
+
+        Map<String, Object> test = new HashMap<>();
+        test.put("props.p2", "v2.1");
+
+        Map<String, Map<String, Object>> contexts = new LinkedHashMap<>();
+        contexts.put("test-application", test);
+        contexts.put("application", application);
+
+        snapshot.write(contexts);
+
+        try (Stream<Path> files = Files.list(path.getParent())) {
+            assertThat(files).containsExactly(path);
+        }
+
+        Map<String, Map<String, Object>> answer = snapshot.read();
+
+        assertThat(answer).containsOnlyKeys("test-application", "application");
+        assertThat(answer.get("test-application")).isEqualTo(test);
+        assertThat(answer.get("application")).isEqualTo(application);
+    }
+}
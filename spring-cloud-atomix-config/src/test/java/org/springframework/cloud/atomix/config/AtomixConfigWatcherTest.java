@@ -0,0 +1,305 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import io.atomix.core.tree.DocumentPath;
+import io.atomix.core.tree.DocumentTree;
+import io.atomix.core.tree.DocumentTreeEvent;
+import io.atomix.utils.time.Versioned;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixConfigWatcherTest {
+    private static final String APPL_CONTEXT = "application";
+    private static final String PROFILE_CONTEXT = "application:dev";
+
+    private AtomixClient atomix;
+    private DocumentTree<String> tree;
+    private AtomixConfigConfiguration configuration;
+    private StandardEnvironment environment;
+    private BlockingQueue<Object> events;
+    private AtomixConfigWatcher watcher;
+
+    // *****************
+    // Test setup
+    // *****************
+
+    @Before
+    public void setUp() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        this.atomix = new AtomixClient(Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build()
+        );
+
+        this.atomix.start();
+
+        this.configuration = new AtomixConfigConfiguration();
+        this.configuration.setRoot(UUID.randomUUID().toString());
+
+        this.tree = this.atomix.getDocumentTree(configuration.getRoot());
+        this.tree.createRecursive(DocumentPath.from("root", APPL_CONTEXT, "props.p1"), "v1");
+        this.tree.createRecursive(DocumentPath.from("root", APPL_CONTEXT, "group", "g1"), "v2");
+        this.tree.createRecursive(DocumentPath.from("root", APPL_CONTEXT, "group", "nested", "g2"), "v3");
+
+        this.environment = new StandardEnvironment();
+        this.events = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void tearDown() {
+        if (this.watcher != null) {
+            this.watcher.stop();
+        }
+        if (this.atomix != null) {
+            this.atomix.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void deltaAppliesLeafChanges() throws Exception {
+        startWatcher();
+
+        tree.create(DocumentPath.from("root", APPL_CONTEXT, "props.p3"), "v4");
+
+        assertThat(nextChange().getKeys()).containsExactly("props.p3");
+        assertThat(environment.getProperty("props.p3")).isEqualTo("v4");
+
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "props.p1"), "v1.1");
+
+        assertThat(nextChange().getKeys()).containsExactly("props.p1");
+        assertThat(environment.getProperty("props.p1")).isEqualTo("v1.1");
+
+        tree.removeNode(DocumentPath.from("root", APPL_CONTEXT, "props.p1"));
+
+        assertThat(nextChange().getKeys()).containsExactly("props.p1");
+        assertThat(environment.containsProperty("props.p1")).isFalse();
+        assertThat(environment.getProperty("props.p3")).isEqualTo("v4");
+    }
+
+    @Test
+    public void deltaRemovesDeletedSubtree() throws Exception {
+        startWatcher();
+
+        assertThat(environment.getProperty("g1")).isEqualTo("v2");
+        assertThat(environment.getProperty("g2")).isEqualTo("v3");
+
+        // a subtree created after the load is tracked as well
+        tree.create(DocumentPath.from("root", APPL_CONTEXT, "other"), "v5");
+        assertThat(nextChange().getKeys()).containsExactly("other");
+        tree.create(DocumentPath.from("root", APPL_CONTEXT, "other", "o1"), "v6");
+        assertThat(nextChange().getKeys()).containsExactly("o1");
+
+        watcher.event(deleted("group"));
+
+        assertThat(nextChange().getKeys()).containsOnly("group", "g1", "nested", "g2");
+        assertThat(environment.containsProperty("g1")).isFalse();
+        assertThat(environment.containsProperty("g2")).isFalse();
+        assertThat(environment.getProperty("props.p1")).isEqualTo("v1");
+
+        watcher.event(deleted("other"));
+
+        assertThat(nextChange().getKeys()).containsOnly("other", "o1");
+        assertThat(environment.containsProperty("o1")).isFalse();
+    }
+
+    @Test
+    public void debounceCoalescesEvents() throws Exception {
+        configuration.getWatch().setDebounce(Duration.ofMillis(250));
+        startWatcher();
+
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "props.p1"), "v1.1");
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "group", "g1"), "v2.1");
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "group", "nested", "g2"), "v3.1");
+
+        assertThat(nextChange().getKeys()).containsOnly("props.p1", "g1", "g2");
+        assertThat(events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+
+        assertThat(environment.getProperty("props.p1")).isEqualTo("v1.1");
+        assertThat(environment.getProperty("g1")).isEqualTo("v2.1");
+        assertThat(environment.getProperty("g2")).isEqualTo("v3.1");
+        assertThat(watcher.getEvents()).isEqualTo(3);
+        assertThat(watcher.getCoalescedEvents()).isEqualTo(2);
+        assertThat(watcher.getPublishes()).isEqualTo(1);
+    }
+
+    @Test
+    public void debounceStopWhileReceivingEvents() throws Exception {
+        configuration.getWatch().setDebounce(Duration.ofMillis(1));
+        startWatcher();
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread sender = new Thread(
+            () -> {
+                try {
+                    for (int i = 0; i < 100_000; i++) {
+                        watcher.event(deleted("props.p1"));
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        );
+
+        sender.start();
+        Thread.sleep(10);
+        watcher.stop();
+        sender.join();
+
+        assertThat(error.get()).isNull();
+
+        events.clear();
+        watcher.event(deleted("props.p1"));
+
+        assertThat(events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void onlyLoadedContextsAreWatched() throws Exception {
+        tree.createRecursive(DocumentPath.from("root", PROFILE_CONTEXT, "props.p1"), "v1.dev");
+        startWatcher(PROFILE_CONTEXT, APPL_CONTEXT);
+
+        assertThat(environment.getProperty("props.p1")).isEqualTo("v1.dev");
+
+        // neither other applications nor contexts sharing a prefix with a loaded one
+        tree.createRecursive(DocumentPath.from("root", "other-application", "props.p1"), "o1");
+        tree.createRecursive(DocumentPath.from("root", APPL_CONTEXT + "-other", "props.p1"), "o2");
+
+        assertThat(events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(watcher.getEvents()).isZero();
+
+        // while every loaded context is
+        tree.set(DocumentPath.from("root", PROFILE_CONTEXT, "props.p1"), "v1.dev.1");
+
+        assertThat(nextChange().getKeys()).containsExactly("props.p1");
+        assertThat(environment.getProperty("props.p1")).isEqualTo("v1.dev.1");
+
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "group", "g1"), "v2.1");
+
+        assertThat(nextChange().getKeys()).containsExactly("g1");
+        assertThat(environment.getProperty("g1")).isEqualTo("v2.1");
+        assertThat(watcher.getEvents()).isEqualTo(2);
+    }
+
+    @Test
+    public void stopRemovesTheListenerOfEveryContext() throws Exception {
+        tree.createRecursive(DocumentPath.from("root", PROFILE_CONTEXT, "props.p1"), "v1.dev");
+        startWatcher(PROFILE_CONTEXT, APPL_CONTEXT);
+
+        watcher.stop();
+        watcher.start();
+
+        // a listener left registered by the first start would deliver each event twice
+        tree.set(DocumentPath.from("root", PROFILE_CONTEXT, "props.p1"), "v1.dev.1");
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "props.p1"), "v1.1");
+
+        assertThat(nextChange().getKeys()).containsExactly("props.p1");
+        assertThat(nextChange().getKeys()).containsExactly("props.p1");
+        assertThat(events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(watcher.getEvents()).isEqualTo(2);
+
+        watcher.stop();
+
+        tree.set(DocumentPath.from("root", APPL_CONTEXT, "props.p1"), "v1.2");
+
+        assertThat(events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(environment.getProperty("props.p1")).isEqualTo("v1.dev.1");
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private void startWatcher() {
+        startWatcher(APPL_CONTEXT);
+    }
+
+    /**
+     * Start a watcher on the given contexts, most specific first.
+     */
+    private void startWatcher(String... names) {
+        final List<String> contexts = Arrays.asList(names);
+        final AtomixConfigLoader loader = new AtomixConfigLoader(atomix, configuration);
+        final AtomixPropertySource source = new AtomixPropertySource(AtomixConfigConstants.NAME, contexts);
+
+        for (String context : contexts) {
+            source.setProperties(context, loader.load(context));
+        }
+
+        environment.getPropertySources().addFirst(source);
+
+        this.watcher = new AtomixConfigWatcher(atomix, loader, configuration, contexts, environment);
+        this.watcher.setApplicationEventPublisher(events::add);
+        this.watcher.start();
+    }
+
+    private EnvironmentChangeEvent nextChange() throws InterruptedException {
+        final Object event = events.poll(10, TimeUnit.SECONDS);
+
+        assertThat(event).isInstanceOf(EnvironmentChangeEvent.class);
+
+        return (EnvironmentChangeEvent) event;
+    }
+
+    /**
+     * The removal of a whole subtree delivered as a single event for its root.
+     */
+    private static DocumentTreeEvent<String> deleted(String node) {
+        return new DocumentTreeEvent<>(
+            DocumentTreeEvent.Type.DELETED,
+            DocumentPath.from("root", APPL_CONTEXT, node),
+            Optional.empty(),
+            Optional.of(new Versioned<>(null, 1)));
+    }
+}
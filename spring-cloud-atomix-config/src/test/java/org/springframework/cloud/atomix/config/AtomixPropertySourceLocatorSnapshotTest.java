@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixPropertySourceLocatorSnapshotTest {
+    private static final String APPL_CONTEXT = "application";
+    private static final String TEST_CONTEXT = "test-application";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+    private AtomixConfigConfiguration configuration;
+    private StandardEnvironment environment;
+    private PendingLoader loader;
+
+    // *****************
+    // Test setup
+    // *****************
+
+    @Before
+    public void setUp() throws Exception {
+        this.path = folder.getRoot().toPath().resolve("config.snapshot");
+
+        this.configuration = new AtomixConfigConfiguration();
+        this.configuration.setBootstrapTimeout(Duration.ofMillis(200));
+        this.configuration.getSnapshot().setEnabled(true);
+        this.configuration.getSnapshot().setPath(path.toString());
+
+        this.environment = new StandardEnvironment();
+        this.environment.getSystemProperties().put(AtomixConfigConstants.PROPERTY_SPRING_APPLICATION_NAME, TEST_CONTEXT);
+
+        this.loader = new PendingLoader(configuration);
+
+        final Map<String, Map<String, Object>> contexts = new LinkedHashMap<>();
+        contexts.put(APPL_CONTEXT, properties("props.p1", "v1", "props.p2", "v2"));
+        contexts.put(TEST_CONTEXT, properties("props.p2", "v2.1"));
+
+        new AtomixConfigSnapshot(path).write(contexts);
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void snapshotServedWhenTheClusterIsUnreachable() throws Exception {
+        final long start = System.nanoTime();
+        final PropertySource<?> source = new AtomixPropertySourceLocator(loader, configuration).locate(environment);
+
+        // the whole wait is capped by the bootstrap timeout
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+
+        assertThat(source.getProperty("props.p1")).isEqualTo("v1");
+        assertThat(source.getProperty("props.p2")).isEqualTo("v2.1");
+
+        // the pending loads have been given up and the snapshot left untouched
+        assertThat(loader.future(APPL_CONTEXT)).isCancelled();
+        assertThat(loader.future(TEST_CONTEXT)).isCancelled();
+        assertThat(new AtomixConfigSnapshot(path).read().get(TEST_CONTEXT)).containsOnlyKeys("props.p2");
+    }
+
+    @Test
+    public void preloadedSnapshotReplacedOnceLoaded() throws Exception {
+        configuration.getSnapshot().setPreload(true);
+
+        final long start = System.nanoTime();
+        final AtomixPropertySourceLocator locator = new AtomixPropertySourceLocator(loader, configuration);
+        final PropertySource<?> source = locator.locate(environment);
+
+        // served right away, without waiting for the cluster
+        assertThat(System.nanoTime() - start).isLessThan(configuration.getBootstrapTimeout().toNanos());
+        assertThat(source.getProperty("props.p1")).isEqualTo("v1");
+        assertThat(source.getProperty("props.p2")).isEqualTo("v2.1");
+        assertThat(locator.getSnapshotReplacement()).isNotDone();
+
+        loader.future(APPL_CONTEXT).complete(properties("props.p1", "v1", "props.p2", "v2"));
+        loader.future(TEST_CONTEXT).complete(properties("props.p2", "v2.2", "props.p3", "v3"));
+
+        assertThat(locator.getSnapshotReplacement().get(5, TimeUnit.SECONDS)).containsOnly("props.p2", "props.p3");
+        assertThat(source.getProperty("props.p1")).isEqualTo("v1");
+        assertThat(source.getProperty("props.p2")).isEqualTo("v2.2");
+        assertThat(source.getProperty("props.p3")).isEqualTo("v3");
+
+        // and the snapshot is refreshed with the loaded contexts
+        assertThat(new AtomixConfigSnapshot(path).read().get(TEST_CONTEXT)).containsOnlyKeys("props.p2", "props.p3");
+    }
+
+    @Test
+    public void preloadedSnapshotUnchangedPublishesNothing() throws Exception {
+        configuration.getSnapshot().setPreload(true);
+
+        final AtomixPropertySourceLocator locator = new AtomixPropertySourceLocator(loader, configuration);
+        locator.locate(environment);
+
+        loader.future(APPL_CONTEXT).complete(properties("props.p1", "v1", "props.p2", "v2"));
+        loader.future(TEST_CONTEXT).complete(properties("props.p2", "v2.1"));
+
+        assertThat(locator.getSnapshotReplacement().get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static Map<String, Object> properties(String... keyValues) {
+        final Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.put(keyValues[i], keyValues[i + 1]);
+        }
+
+        return Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * A loader whose loads never complete unless explicitly completed, as when the
+     * cluster cannot be joined.
+     */
+    private static final class PendingLoader extends AtomixConfigLoader {
+        private final Map<String, CompletableFuture<Map<String, Object>>> futures;
+
+        PendingLoader(AtomixConfigConfiguration properties) {
+            super(null, properties);
+
+            this.futures = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public CompletableFuture<Map<String, Object>> loadAsync(String context) {
+            return future(context);
+        }
+
+        CompletableFuture<Map<String, Object>> future(String context) {
+            return futures.computeIfAbsent(context, c -> new CompletableFuture<>());
+        }
+    }
+}
@@ -26,7 +26,6 @@ import io.atomix.core.profile.Profile;
 import io.atomix.core.tree.DocumentPath;
 import org.junit.After;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -117,7 +116,21 @@ public class AtomixPropertySourceLocatorTests {
         assertThat(context.getEnvironment().getProperty("props.p2")).isEqualTo("v2.1");
     }
 
-    @Ignore("AtomixClient registered twice")
+    @Test
+    public void atomixClientSharedWithBootstrap() {
+        final AtomixClient client = context.getBean(AtomixClient.class);
+
+        // the node the configuration has been loaded with is the only one
+        assertThat(context.getBeansOfType(AtomixClient.class)).hasSize(1);
+        assertThat(context.getParent().getBean(AtomixClient.class)).isSameAs(client);
+        assertThat(client.isRunning()).isTrue();
+
+        // and it is stopped with the application context
+        context.close();
+
+        assertThat(client.isRunning()).isFalse();
+    }
+
     @Test
     public void propertyLoadedAndUpdated() throws Exception {
         assertThat(context.getEnvironment().getProperty("props.p1")).isEqualTo("v1");
@@ -153,7 +166,7 @@ public class AtomixPropertySourceLocatorTests {
         public void handle(EnvironmentChangeEvent event) {
             LOGGER.debug("Event keys: " + event.getKeys());
 
-            if (event.getKeys().contains("")) {
+            if (event.getKeys().contains("props.p1")) {
                 countDownLatch().countDown();
             }
         }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixPropertySourceTest {
+    @Test
+    public void testPrecedence() {
+        AtomixPropertySource source = new AtomixPropertySource(AtomixConfigConstants.NAME, Arrays.asList("test-application", "application"));
+
+        Map<String, Object> application = new HashMap<>();
+        application.put("props.p1", "v1");
+        application.put("props.p2", "v2");
+
+        Map<String, Object> test = new HashMap<>();
+        test.put("props.p2", "v2.1");
+
+        source.setProperties("application", application);
+        source.setProperties("test-application", test);
+
+        assertThat(source.getProperty("props.p1")).isEqualTo("v1");
+        assertThat(source.getProperty("props.p2")).isEqualTo("v2.1");
+        assertThat(source.getPropertyNames()).containsExactly("props.p1", "props.p2");
+        assertThat(source.getPropertyNames()).isSameAs(source.getPropertyNames());
+
+        source.setProperties("test-application", new HashMap<>());
+
+        assertThat(source.getProperty("props.p2")).isEqualTo("v2");
+    }
+
+    @Test
+    public void testNullValuesDoNotShadow() {
+        AtomixPropertySource source = new AtomixPropertySource(AtomixConfigConstants.NAME, Arrays.asList("application:dev", "application"));
+
+        Map<String, Object> application = new HashMap<>();
+        application.put("server", "s1");
+        application.put("props.p1", "v1");
+
+        // the profile context has an intermediate node at the key the default context defines
+        Map<String, Object> dev = new HashMap<>();
+        dev.put("server", null);
+        dev.put("port", "8080");
+        dev.put("props.p1", null);
+        dev.put("group", null);
+
+        source.setProperties("application", application);
+        source.setProperties("application:dev", dev);
+
+        assertThat(source.getProperty("server")).isEqualTo("s1");
+        assertThat(source.getProperty("props.p1")).isEqualTo("v1");
+        assertThat(source.getProperty("port")).isEqualTo("8080");
+
+        // a key with no value in any context is not a property
+        assertThat(source.containsProperty("group")).isFalse();
+        assertThat(source.getPropertyNames()).containsExactly("port", "props.p1", "server");
+        assertThat(source.containsPrefix("group")).isFalse();
+
+        // while the null values are still part of the context
+        assertThat(source.getProperties("application:dev")).containsKey("group");
+    }
+
+    @Test
+    public void testPrefixIndex() {
+        AtomixPropertySource source = new AtomixPropertySource(AtomixConfigConstants.NAME, Arrays.asList("application"));
+
+        Map<String, Object> application = new HashMap<>();
+        application.put("a.b", "v1");
+        application.put("a.b.c", "v2");
+        application.put("a.bc", "v3");
+        application.put("x", "v4");
+
+        source.setProperties("application", application);
+
+        assertThat(source.getPropertyNames("a")).containsExactly("a.b", "a.b.c", "a.bc");
+        assertThat(source.getPropertyNames("a.b")).containsExactly("a.b", "a.b.c");
+        assertThat(source.getPropertyNames("y")).isEmpty();
+        assertThat(source.containsPrefix("x")).isTrue();
+        assertThat(source.containsPrefix("a.b.c.d")).isFalse();
+    }
+}
@@ -16,12 +16,16 @@
 
 package org.springframework.cloud.atomix;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import io.atomix.cluster.Member;
 import io.atomix.cluster.MemberConfig;
 import io.atomix.core.Atomix;
 import io.atomix.core.AtomixConfig;
 import io.atomix.core.profile.Profile;
 import io.atomix.utils.net.Address;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
@@ -47,15 +51,26 @@ import org.springframework.core.convert.converter.Converter;
 public class AtomixAutoConfiguration {
 
     @Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
-    @Bean(name = "atomix-client", initMethod = "start", destroyMethod = "stop")
+    @Bean(name = AtomixConstants.CLIENT_BEAN_NAME)
     @ConditionalOnMissingBean
     public AtomixClient atomixClient(AtomixConfiguration properties) {
+        return createAtomixClient(properties);
+    }
+
+    /**
+     * Create an {@link AtomixClient} for an ephemeral member configured by the given
+     * properties.
+     */
+    public static AtomixClient createAtomixClient(AtomixConfiguration properties) {
         final AtomixConfig config = new AtomixConfig();
         final MemberConfig local = new MemberConfig();
 
         local.setType(Member.Type.EPHEMERAL);
         local.setAddress(properties.getLocalMember().getAddress());
         local.setId(properties.getLocalMember().getOrGenerateId());
+        // a concurrent copy so the metadata can be updated at runtime while atomix
+        // serializes the local member on its own threads
+        local.setMetadata(concurrentCopy(properties.getLocalMember().getMetadata()));
 
         // This is an ephemeral/client instance, not a data node
         config.addProfile(Profile.CLIENT);
@@ -66,7 +81,19 @@ public class AtomixAutoConfiguration {
         // add members of the cluster
         properties.getMembers().forEach(member -> config.getClusterConfig().addMember(member));
 
-        return new AtomixClient(Atomix.builder(config).build());
+        return new AtomixClient(Atomix.builder(config).build(), properties);
+    }
+
+    private static Map<String, String> concurrentCopy(Map<String, String> metadata) {
+        final Map<String, String> copy = new ConcurrentHashMap<>();
+
+        metadata.forEach((key, value) -> {
+            if (key != null && value != null) {
+                copy.put(key, value);
+            }
+        });
+
+        return copy;
     }
 
     @Configuration
@@ -81,6 +108,16 @@ public class AtomixAutoConfiguration {
         }
     }
 
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    protected static class AtomixMetricsConfig {
+        @Bean
+        @ConditionalOnMissingBean
+        public AtomixMetrics atomixMetrics(AtomixClient atomix) {
+            return new AtomixMetrics(atomix);
+        }
+    }
+
     @Bean
     public Converter<String, Address> atomixAddressConverters() {
         return new Converter<String, Address>() {
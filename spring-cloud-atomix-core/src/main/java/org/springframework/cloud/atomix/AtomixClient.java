@@ -16,23 +16,68 @@
 
 package org.springframework.cloud.atomix;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
 
 import io.atomix.cluster.ClusterMembershipService;
 import io.atomix.cluster.Member;
 import io.atomix.core.Atomix;
+import io.atomix.core.map.ConsistentMap;
 import io.atomix.core.tree.DocumentTree;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.Lifecycle;
+import org.springframework.context.SmartLifecycle;
 
-public class AtomixClient implements Lifecycle {
+/**
+ * Wraps an {@link Atomix} instance and controls its lifecycle.
+ *
+ * When {@link AtomixConfiguration#isAsyncStart()} is set, {@link #start()} only triggers
+ * the cluster join and returns so the join proceeds in parallel with the rest of the
+ * context initialization; the accessors that need the cluster block, up to the configured
+ * start timeout, until the join completes. Once stopped the client can't be started again
+ * and the accessors that need the cluster fail fast. The client is started and stopped,
+ * as a {@link SmartLifecycle}, by the context it is registered in.
+ *
+ * When the local member is registered as a service, {@link #stop()} first marks it as
+ * {@link AtomixConstants#STATUS_DRAINING} and waits for the status to reach the other
+ * members and for the in-flight requests to complete before leaving the cluster, see
+ * {@link AtomixConfiguration.DrainConfig}.
+ */
+public class AtomixClient implements SmartLifecycle {
     private final Logger logger;
     private final Atomix atomix;
+    private final AtomixConfiguration configuration;
+    private final Object lock;
+    private volatile State state;
+    private volatile boolean started;
+    private volatile CompletableFuture<Void> startFuture;
+    private final List<LongSupplier> inFlight;
+    private final List<Runnable> drainCallbacks;
+    private volatile Duration joinDuration;
+    private volatile Duration drainDuration;
 
     public AtomixClient(Atomix atomix) {
+        this(atomix, new AtomixConfiguration());
+    }
+
+    public AtomixClient(Atomix atomix, AtomixConfiguration configuration) {
         this.logger = LoggerFactory.getLogger(getClass());
         this.atomix = atomix;
+        this.configuration = configuration;
+        this.lock = new Object();
+        this.state = State.NEW;
+        this.inFlight = new CopyOnWriteArrayList<>();
+        this.drainCallbacks = new CopyOnWriteArrayList<>();
     }
 
     // ************************
@@ -41,45 +86,249 @@ public class AtomixClient implements Lifecycle {
 
     @Override
     public void start() {
-        if (isRunning()) {
+        startAsync();
+
+        if (!configuration.isAsyncStart()) {
+            awaitStarted();
+        }
+    }
+
+    /**
+     * Trigger the cluster join if not yet done.
+     *
+     * @return a future completed once the cluster has been joined.
+     * @throws IllegalStateException if the client has been stopped.
+     */
+    public CompletableFuture<Void> startAsync() {
+        synchronized (lock) {
+            if (this.state == State.STOPPED) {
+                throw new IllegalStateException("Atomix client has been stopped");
+            }
+            if (this.state == State.STOPPING) {
+                return this.startFuture;
+            }
+
+            if (this.startFuture == null) {
+                final long start = System.nanoTime();
+
+                logger.debug("starting atomix (local: {}, members: {})", atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
+                this.startFuture = this.atomix.start().thenRun(
+                    () -> {
+                        this.joinDuration = Duration.ofNanos(System.nanoTime() - start);
+
+                        logger.debug("started atomix in {} ms (local: {}, members: {})", joinDuration.toMillis(), atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
+                    }
+                );
+                this.state = State.STARTED;
+                this.started = true;
+            }
+
+            return this.startFuture;
+        }
+    }
+
+    /**
+     * Block until the cluster has been joined, the join is triggered if needed.
+     *
+     * @throws IllegalStateException if the join fails or does not complete within the
+     *         configured start timeout or if the client has been stopped.
+     */
+    public void awaitStarted() {
+        final CompletableFuture<Void> future = startAsync();
+
+        if (future.isDone() && !future.isCompletedExceptionally()) {
             return;
         }
 
-        logger.debug("starting atomix (local: {}, members: {})", atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
-        this.atomix.start()
-            .thenRun(
-                () -> {
-                    logger.debug("started atomix (local: {}, members: {})", atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
-                }
-            )
-            .join();
+        final Duration timeout = configuration.getStartTimeout();
+
+        try {
+            future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Atomix did not start within " + timeout.toMillis() + " ms", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Atomix failed to start", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for atomix to start", e);
+        }
     }
 
     @Override
     public void stop() {
-        if (!isRunning()) {
-            return;
+        synchronized (lock) {
+            final State previous = this.state;
+
+            this.started = false;
+
+            if (previous != State.STARTED) {
+                if (previous == State.NEW) {
+                    this.state = State.STOPPED;
+                }
+
+                return;
+            }
+
+            // the client stays usable while draining, the in-flight requests may need it
+            this.state = State.STOPPING;
         }
 
-        logger.debug("stopping atomix (local: {}, members: {})", atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
-        this.atomix.stop().thenRun(
-            () -> {
-                logger.debug("stopped atomix (local: {}, members: {})", atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
+        for (Runnable callback : drainCallbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                logger.warn("Error running a drain callback", e);
             }
-        ).join();
+        }
+
+        drain();
+
+        synchronized (lock) {
+            this.state = State.STOPPED;
+        }
+
+        // release the callers still waiting for the join
+        this.startFuture.completeExceptionally(new IllegalStateException("Atomix client has been stopped"));
+
+        final Duration timeout = configuration.getStopTimeout();
+
+        logger.debug("stopping atomix (local: {}, members: {})", atomix.membershipService().getLocalMember(), atomix.membershipService().getMembers());
+
+        try {
+            this.atomix.stop().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+            logger.debug("stopped atomix (local: {})", atomix.membershipService().getLocalMember());
+        } catch (TimeoutException e) {
+            logger.warn("atomix did not stop within {} ms", timeout.toMillis());
+        } catch (ExecutionException e) {
+            logger.warn("error stopping atomix", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted while stopping atomix");
+        }
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        try {
+            stop();
+        } finally {
+            callback.run();
+        }
     }
 
+    /**
+     * Whether the client has been started and not yet stopped, the cluster may still be
+     * being joined, see {@link #isJoined()}.
+     */
     @Override
     public boolean isRunning() {
+        return this.started;
+    }
+
+    /**
+     * Whether the cluster has been joined and not yet left, unlike the accessors that
+     * need the cluster this never blocks.
+     */
+    public boolean isJoined() {
         return this.atomix.isRunning();
     }
 
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public int getPhase() {
+        // start before and stop after the components that use the client
+        return Integer.MIN_VALUE;
+    }
+
+    public AtomixConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Register the number of in-flight requests served by the local member, the member
+     * leaves the cluster only once they reach zero or the drain timeout expires.
+     *
+     * This is a hook: nothing is registered out of the box, without a source the drain
+     * only waits for the draining status to propagate.
+     */
+    public void addInFlightRequests(LongSupplier requests) {
+        this.inFlight.add(Objects.requireNonNull(requests));
+    }
+
+    /**
+     * Register a callback run when the client is stopped, before the local member is
+     * drained, such as flushing the pending metadata updates so they can't overwrite the
+     * draining status.
+     */
+    public void addDrainCallback(Runnable callback) {
+        this.drainCallbacks.add(Objects.requireNonNull(callback));
+    }
+
+    /**
+     * The time it took to drain the local member or null if it has not been drained.
+     */
+    public Duration getDrainDuration() {
+        return drainDuration;
+    }
+
+    /**
+     * The time it took to join the cluster or null if the cluster has not been joined yet.
+     */
+    public Duration getJoinDuration() {
+        return joinDuration;
+    }
+
     // ************************
     // Access Atomix services
     // ************************
     
     public Member getLocalMember() {
-        return getMemberhipService().getLocalMember();
+        // the local member is known before joining the cluster
+        return this.atomix.membershipService().getLocalMember();
+    }
+
+    /**
+     * Update the metadata of the local member, a null value removes the key.
+     *
+     * The metadata is carried to the other members by the membership protocol, which
+     * reports the local member as updated; callers should batch updates as each call
+     * results in a change observed by the whole cluster.
+     *
+     * Atomix reads the metadata on its own threads without holding the lock taken here,
+     * so the local member must be built with a concurrent map, as done by
+     * {@link AtomixAutoConfiguration#createAtomixClient(AtomixConfiguration)}.
+     *
+     * @return true if the metadata changed.
+     * @throws IllegalStateException if the metadata of the local member is immutable.
+     */
+    public boolean updateLocalMetadata(Map<String, String> updates) {
+        final Map<String, String> metadata = getLocalMember().metadata();
+        boolean changed = false;
+
+        try {
+            synchronized (metadata) {
+                for (Map.Entry<String, String> entry : updates.entrySet()) {
+                    final String previous = entry.getValue() != null
+                        ? metadata.put(entry.getKey(), entry.getValue())
+                        : metadata.remove(entry.getKey());
+
+                    changed |= !Objects.equals(previous, entry.getValue());
+                }
+            }
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalStateException("The metadata of the local member can't be updated", e);
+        }
+
+        if (changed) {
+            logger.debug("Updated local member metadata: {}", updates);
+        }
+
+        return changed;
     }
 
     public Collection<Member> getMembers() {
@@ -87,18 +336,89 @@ public class AtomixClient implements Lifecycle {
     }
 
     public <T> DocumentTree<T> getDocumentTree(String name) {
+        awaitStarted();
+
         return this.atomix.getDocumentTree(name);
     }
 
+    public <K, V> ConsistentMap<K, V> getConsistentMap(String name) {
+        awaitStarted();
+
+        return this.atomix.getConsistentMap(name);
+    }
+
     public ClusterMembershipService getMemberhipService() {
+        awaitStarted();
+
         return this.atomix.membershipService();
     }
 
     // ************************
     // Helpers
     // ************************
+
+    /**
+     * Mark the local member as draining so the other members stop routing to it, wait for
+     * the status to propagate and for the in-flight requests to complete.
+     */
+    private void drain() {
+        final AtomixConfiguration.DrainConfig config = configuration.getDrain();
+        final Map<String, String> metadata = getLocalMember().metadata();
+
+        if (!config.isEnabled() || !isJoined() || metadata.get(AtomixConstants.META_SERVICE_ID) == null) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final long propagated = start + config.getPropagationDelay().toNanos();
+        final long deadline = start + config.getTimeout().toNanos();
+
+        try {
+            updateLocalMetadata(Collections.singletonMap(AtomixConstants.META_SERVICE_STATUS, AtomixConstants.STATUS_DRAINING));
+        } catch (IllegalStateException e) {
+            logger.warn("Unable to mark the local member as draining", e);
+            return;
+        }
+
+        try {
+            long now = System.nanoTime();
+
+            while (now < deadline && (now < propagated || getInFlightRequests() > 0)) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(deadline - now, TimeUnit.MILLISECONDS.toNanos(50)));
+                now = System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted while draining the local member");
+        }
+
+        this.drainDuration = Duration.ofNanos(System.nanoTime() - start);
+
+        final long remaining = getInFlightRequests();
+        if (remaining > 0) {
+            logger.warn("drain timed out after {} ms with {} in-flight requests", drainDuration.toMillis(), remaining);
+        } else {
+            logger.info("drained the local member in {} ms", drainDuration.toMillis());
+        }
+    }
+
+    private long getInFlightRequests() {
+        long requests = 0;
+        for (LongSupplier supplier : inFlight) {
+            requests += supplier.getAsLong();
+        }
+
+        return requests;
+    }
     
     protected Atomix atomix() {
         return this.atomix;
     }
+
+    private enum State {
+        NEW,
+        STARTED,
+        STOPPING,
+        STOPPED
+    }
 } 
\ No newline at end of file
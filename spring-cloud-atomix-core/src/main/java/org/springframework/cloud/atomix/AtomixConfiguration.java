@@ -16,8 +16,11 @@
 
 package org.springframework.cloud.atomix;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import io.atomix.cluster.MemberConfig;
@@ -50,6 +53,33 @@ public class AtomixConfiguration {
      */
     private List<MemberConfig> members = new ArrayList<>();
 
+    /**
+     * Start joining the cluster in background instead of blocking the context startup,
+     * components block only when they first need the cluster. Always set for the client
+     * the configuration is loaded with, which is bounded by the config timeouts.
+     */
+    private boolean asyncStart = false;
+
+    /**
+     * How long to wait for the cluster to be joined.
+     */
+    private Duration startTimeout = Duration.ofSeconds(60);
+
+    /**
+     * How long to wait for the cluster to be left.
+     */
+    private Duration stopTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How membership events are dispatched to the member watches.
+     */
+    private DispatchConfig dispatch = new DispatchConfig();
+
+    /**
+     * How the local member is drained before leaving the cluster.
+     */
+    private DrainConfig drain = new DrainConfig();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -70,9 +100,50 @@ public class AtomixConfiguration {
         return members;
     }
 
+    public boolean isAsyncStart() {
+        return asyncStart;
+    }
+
+    public void setAsyncStart(boolean asyncStart) {
+        this.asyncStart = asyncStart;
+    }
+
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public void setStartTimeout(Duration startTimeout) {
+        this.startTimeout = startTimeout;
+    }
+
+    public Duration getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public void setStopTimeout(Duration stopTimeout) {
+        this.stopTimeout = stopTimeout;
+    }
+
+    public DispatchConfig getDispatch() {
+        return dispatch;
+    }
+
+    public void setDispatch(DispatchConfig dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    public DrainConfig getDrain() {
+        return drain;
+    }
+
+    public void setDrain(DrainConfig drain) {
+        this.drain = drain;
+    }
+
     public static class LocalMemberConfig {
         private String id;
         private Address address;
+        private Map<String, String> metadata = new HashMap<>();
 
         public String getId() {
             return id;
@@ -93,5 +164,124 @@ public class AtomixConfiguration {
         public void setAddress(Address address) {
             this.address = address;
         }
+
+        public Map<String, String> getMetadata() {
+            return metadata;
+        }
+
+        public void setMetadata(Map<String, String> metadata) {
+            this.metadata = metadata;
+        }
+    }
+
+    public static class DispatchConfig {
+        /**
+         * The max number of membership events waiting to be dispatched.
+         */
+        private int queueCapacity = 1024;
+
+        /**
+         * What to do when the queue is full.
+         */
+        private OverflowPolicy overflow = OverflowPolicy.COALESCE;
+
+        /**
+         * Collect the events received within this window, measured from the last event,
+         * and dispatch them as a single change; zero disables batching.
+         */
+        private Duration batchWindow = Duration.ZERO;
+
+        /**
+         * The max time a batch is delayed, measured from its first event.
+         */
+        private Duration maxLatency = Duration.ofSeconds(1);
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public OverflowPolicy getOverflow() {
+            return overflow;
+        }
+
+        public void setOverflow(OverflowPolicy overflow) {
+            this.overflow = overflow;
+        }
+
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        public Duration getMaxLatency() {
+            return maxLatency;
+        }
+
+        public void setMaxLatency(Duration maxLatency) {
+            this.maxLatency = maxLatency;
+        }
+
+        public enum OverflowPolicy {
+            /**
+             * Discard the queued events and let the watch resync from the latest
+             * membership snapshot.
+             */
+            COALESCE,
+            /**
+             * Dispatch the queued events and the new one on the atomix thread that
+             * delivered it, this slows down atomix until the queue has been drained.
+             */
+            CALLER_RUNS
+        }
+    }
+
+    public static class DrainConfig {
+        /**
+         * Drain the local member, if registered as a service, before leaving the cluster.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The time the other members need to observe the draining status, about a couple
+         * of membership heartbeats.
+         */
+        private Duration propagationDelay = Duration.ofSeconds(2);
+
+        /**
+         * The max time to wait for the in-flight requests to complete, including the
+         * propagation delay.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getPropagationDelay() {
+            return propagationDelay;
+        }
+
+        public void setPropagationDelay(Duration propagationDelay) {
+            this.propagationDelay = propagationDelay;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
     }
 }
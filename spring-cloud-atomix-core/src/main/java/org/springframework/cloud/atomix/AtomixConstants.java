@@ -17,12 +17,19 @@
 package org.springframework.cloud.atomix;
 
 public final class AtomixConstants {
+    public static final String CLIENT_BEAN_NAME = "atomix-client";
+
     public static final String META_SERVICE_ID = "service.id";
     public static final String META_SERVICE_HOST = "service.host";
     public static final String META_SERVICE_PORT = "service.port";
     public static final String META_SERVICE_SCHEME = "service.scheme";
     public static final String META_SERVICE_RACK = "service.rack";
     public static final String META_SERVICE_ZONE = "service.zone";
+    public static final String META_SERVICE_STATUS = "service.status";
+
+    public static final String STATUS_UP = "UP";
+    public static final String STATUS_OUT_OF_SERVICE = "OUT_OF_SERVICE";
+    public static final String STATUS_DRAINING = "DRAINING";
 
     private AtomixConstants() {
     }
@@ -16,7 +16,16 @@
 
 package org.springframework.cloud.atomix;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.atomix.cluster.ClusterMembershipEvent;
 import io.atomix.cluster.ClusterMembershipEventListener;
@@ -24,21 +33,65 @@ import io.atomix.cluster.Member;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.Lifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+/**
+ * Base class for the components reacting to cluster membership changes.
+ *
+ * Membership events are not handled on the atomix thread that delivers them: they are
+ * put on a bounded queue and dispatched, in order, by a dedicated thread so a slow
+ * callback does not stall atomix. When the queue is full the configured
+ * {@link AtomixConfiguration.DispatchConfig.OverflowPolicy} applies, with the default
+ * {@code COALESCE} policy the queued events are dropped and the watch is asked to resync
+ * from the current membership through {@link #onMembershipResync()}.
+ *
+ * When a batch window is configured, the events received within the window are
+ * aggregated and dispatched at once through {@link #onMembershipChanged(AtomixMembershipChange)};
+ * the max latency bounds how long the first event of a batch can be delayed.
+ *
+ * The callbacks are never invoked concurrently: they run under a dispatch lock that the
+ * {@code CALLER_RUNS} policy also takes to drain the queue inline, in order, before
+ * dispatching the event that overflowed it. A batch is collected without the lock, so
+ * the caller never waits for the batch window, and the events collected so far are
+ * dispatched first by the caller.
+ */
 public abstract class AtomixMemberWatch implements Lifecycle, ClusterMembershipEventListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(AtomixMemberWatch.class);
+    private static final Dispatch RESYNC = new Dispatch(null, 0);
 
     private final AtomixClient client;
+    private final AtomixConfiguration.DispatchConfig config;
     private final AtomicBoolean running;
+    private final AtomicBoolean resync;
+    private final BlockingQueue<Dispatch> queue;
+    private final Semaphore available;
+    private final Object dispatchLock;
+    private final List<Dispatch> batch;
+    private final LongAdder dispatched;
+    private final LongAdder dispatchLag;
+    private final LongAdder overflows;
+    private ExecutorService executor;
 
     public AtomixMemberWatch(AtomixClient client) {
         this.client = client;
+        this.config = client.getConfiguration().getDispatch();
         this.running = new AtomicBoolean(false);
+        this.resync = new AtomicBoolean(false);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        this.available = new Semaphore(0);
+        this.dispatchLock = new Object();
+        this.batch = new ArrayList<>();
+        this.dispatched = new LongAdder();
+        this.dispatchLag = new LongAdder();
+        this.overflows = new LongAdder();
     }
-    
+
     @Override
     public void start() {
         if (this.running.compareAndSet(false, true)) {
+            this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("atomix-member-watch-"));
+            this.executor.execute(this::dispatchLoop);
+
             client.getMemberhipService().addListener(this);
         }
     }
@@ -46,7 +99,18 @@ public abstract class AtomixMemberWatch implements Lifecycle, ClusterMembershipE
     @Override
     public void stop() {
         if (this.running.compareAndSet(true, false)) {
-            client.getMemberhipService().removeListener(this);
+            // the client may already be stopped, removing the listener does not need the
+            // cluster to be joined
+            client.atomix().membershipService().removeListener(this);
+
+            this.executor.shutdownNow();
+            this.executor = null;
+            this.queue.clear();
+            this.available.drainPermits();
+
+            synchronized (dispatchLock) {
+                this.batch.clear();
+            }
         }
     }
 
@@ -63,9 +127,251 @@ public abstract class AtomixMemberWatch implements Lifecycle, ClusterMembershipE
         if (subject != null && local != null && !local.equals(subject)) {
             LOGGER.debug("Received member update from atomix: {}", event);
 
-            onMembershipChanged(event);
+            enqueue(event);
         }
     }
 
+    /**
+     * The number of events waiting to be dispatched.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * The number of events dispatched.
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * The total time, in nanoseconds, events have waited before being dispatched.
+     */
+    public long getDispatchLag() {
+        return dispatchLag.sum();
+    }
+
+    /**
+     * The number of times the queue has overflown.
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
     protected abstract void onMembershipChanged(ClusterMembershipEvent event);
+
+    /**
+     * Invoked, on the dispatch thread, with the aggregated change of a batch of events
+     * when batching is enabled. By default the change is replayed member by member
+     * through {@link #onMembershipChanged(ClusterMembershipEvent)}, the updated members,
+     * including the ones that left and joined again, as {@code MEMBER_UPDATED}.
+     */
+    protected void onMembershipChanged(AtomixMembershipChange change) {
+        for (Member member : change.getRemoved()) {
+            onMembershipChanged(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_REMOVED, member));
+        }
+        for (Member member : change.getAdded()) {
+            onMembershipChanged(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_ADDED, member));
+        }
+        for (Member member : change.getUpdated()) {
+            onMembershipChanged(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_UPDATED, member));
+        }
+    }
+
+    /**
+     * Invoked, on the dispatch thread, when membership events have been dropped because
+     * the queue overflowed; implementations should resync from the current membership.
+     */
+    protected void onMembershipResync() {
+    }
+
+    // ************************
+    // Dispatch
+    // ************************
+
+    private void enqueue(ClusterMembershipEvent event) {
+        final Dispatch dispatch = new Dispatch(event, System.nanoTime());
+
+        if (queue.offer(dispatch)) {
+            available.release();
+            return;
+        }
+
+        overflows.increment();
+
+        if (config.getOverflow() == AtomixConfiguration.DispatchConfig.OverflowPolicy.CALLER_RUNS) {
+            LOGGER.debug("Dispatch queue full, dispatching on the caller thread: {}", event);
+
+            try {
+                synchronized (dispatchLock) {
+                    // the batch being collected and the queued events go first so the
+                    // events are dispatched in order
+                    final List<Dispatch> pending = new ArrayList<>(batch.size() + queue.size() + 1);
+
+                    pending.addAll(batch);
+                    batch.clear();
+                    queue.drainTo(pending);
+                    pending.add(dispatch);
+
+                    if (config.getBatchWindow().isZero()) {
+                        for (Dispatch next : pending) {
+                            handle(next);
+                        }
+                    } else {
+                        dispatchChange(pending);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Error dispatching membership change", e);
+            }
+        } else {
+            LOGGER.debug("Dispatch queue full, coalescing {} events", queue.size() + 1);
+
+            // the resync reads the latest membership so the queued events are not
+            // needed anymore
+            queue.clear();
+            resync.set(true);
+
+            if (queue.offer(RESYNC)) {
+                available.release();
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        while (isRunning() && !Thread.currentThread().isInterrupted()) {
+            try {
+                // permits outnumber the queued events when the caller drained the queue,
+                // the poll below then simply finds nothing
+                if (!available.tryAcquire(1, TimeUnit.SECONDS)) {
+                    continue;
+                }
+
+                Dispatch first = null;
+
+                synchronized (dispatchLock) {
+                    final Dispatch dispatch = queue.poll();
+
+                    if (dispatch != null && !config.getBatchWindow().isZero() && dispatch != RESYNC) {
+                        batch.add(dispatch);
+                        first = dispatch;
+                    } else if (dispatch != null) {
+                        handle(dispatch);
+                    }
+                }
+
+                if (first != null) {
+                    dispatchBatch(first);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.warn("Error dispatching membership change", e);
+            }
+        }
+    }
+
+    private void handle(Dispatch dispatch) {
+        if (dispatch == RESYNC) {
+            resync();
+        } else {
+            dispatch(dispatch);
+        }
+    }
+
+    private void resync() {
+        if (resync.getAndSet(false)) {
+            onMembershipResync();
+        }
+    }
+
+    /**
+     * Collect the events following the given one, already in the batch, until no event
+     * has been received for the batch window or the max latency has elapsed, then
+     * dispatch the aggregated change.
+     *
+     * The wait happens without the dispatch lock, the lock is only taken to move an event
+     * to the batch or to dispatch it; a caller running the dispatch in the meantime takes
+     * the batch over, in which case there is nothing left to dispatch.
+     */
+    private void dispatchBatch(Dispatch first) throws InterruptedException {
+        final long window = config.getBatchWindow().toNanos();
+        final long deadline = first.received + config.getMaxLatency().toNanos();
+
+        for (;;) {
+            final long timeout = Math.min(window, deadline - System.nanoTime());
+
+            if (timeout <= 0 || !available.tryAcquire(timeout, TimeUnit.NANOSECONDS)) {
+                break;
+            }
+
+            synchronized (dispatchLock) {
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                final Dispatch next = queue.poll();
+
+                if (next == RESYNC) {
+                    // the resync supersedes the events collected so far
+                    batch.clear();
+                    resync();
+                    return;
+                }
+                if (next != null) {
+                    batch.add(next);
+                }
+            }
+        }
+
+        synchronized (dispatchLock) {
+            if (!batch.isEmpty()) {
+                final List<Dispatch> collected = new ArrayList<>(batch);
+
+                batch.clear();
+                dispatchChange(collected);
+            }
+        }
+    }
+
+    private void dispatchChange(List<Dispatch> batch) {
+        final long now = System.nanoTime();
+        final List<ClusterMembershipEvent> events = new ArrayList<>(batch.size());
+
+        for (Dispatch dispatch : batch) {
+            if (dispatch == RESYNC) {
+                continue;
+            }
+
+            dispatchLag.add(now - dispatch.received);
+            dispatched.increment();
+            events.add(dispatch.event);
+        }
+
+        final AtomixMembershipChange change = AtomixMembershipChange.of(events);
+
+        LOGGER.debug("Dispatching membership change: {}", change);
+
+        if (!change.isEmpty()) {
+            onMembershipChanged(change);
+        }
+    }
+
+    private void dispatch(Dispatch dispatch) {
+        dispatchLag.add(System.nanoTime() - dispatch.received);
+        dispatched.increment();
+
+        onMembershipChanged(dispatch.event);
+    }
+
+    private static final class Dispatch {
+        final ClusterMembershipEvent event;
+        final long received;
+
+        Dispatch(ClusterMembershipEvent event, long received) {
+            this.event = event;
+            this.received = received;
+        }
+    }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import io.atomix.cluster.MemberId;
+
+/**
+ * The net change of the cluster membership resulting from a batch of
+ * {@link ClusterMembershipEvent}s: a member appears at most once, with its latest state,
+ * in one of the added, removed or updated lists.
+ */
+public final class AtomixMembershipChange {
+    private final List<Member> added;
+    private final List<Member> removed;
+    private final List<Member> updated;
+    private final int events;
+
+    private AtomixMembershipChange(List<Member> added, List<Member> removed, List<Member> updated, int events) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.updated = Collections.unmodifiableList(updated);
+        this.events = events;
+    }
+
+    /**
+     * The members that joined the cluster.
+     */
+    public List<Member> getAdded() {
+        return added;
+    }
+
+    /**
+     * The members that left the cluster.
+     */
+    public List<Member> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * The members that were already known and have changed, including the ones that left
+     * and joined again.
+     */
+    public List<Member> getUpdated() {
+        return updated;
+    }
+
+    /**
+     * The number of events aggregated in this change.
+     */
+    public int getEvents() {
+        return events;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && updated.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "AtomixMembershipChange{"
+            + "added=" + added.size()
+            + ", removed=" + removed.size()
+            + ", updated=" + updated.size()
+            + ", events=" + events
+            + '}';
+    }
+
+    /**
+     * Aggregate the given events, in the order they have been received.
+     */
+    public static AtomixMembershipChange of(List<ClusterMembershipEvent> events) {
+        final Accumulator accumulator = new Accumulator();
+        events.forEach(accumulator::add);
+
+        return accumulator.build();
+    }
+
+    // ************************
+    // Accumulator
+    // ************************
+
+    /**
+     * Reduces the events as they are received: a single entry is kept per member, the
+     * type of its first event and its latest event, so the memory held does not depend
+     * on the number of events but only on the number of members they are about.
+     */
+    static final class Accumulator {
+        private final Map<MemberId, Entry> entries = new LinkedHashMap<>();
+        private int events;
+
+        void add(ClusterMembershipEvent event) {
+            final Entry entry = entries.get(event.subject().id());
+
+            if (entry == null) {
+                entries.put(event.subject().id(), new Entry(event));
+            } else {
+                entry.last = event;
+            }
+
+            events++;
+        }
+
+        /**
+         * Add the events reduced by the given accumulator as if they were received after
+         * the ones of this accumulator.
+         */
+        void addAll(Accumulator other) {
+            for (Map.Entry<MemberId, Entry> entry : other.entries.entrySet()) {
+                final Entry current = entries.get(entry.getKey());
+
+                if (current == null) {
+                    entries.put(entry.getKey(), new Entry(entry.getValue().firstType, entry.getValue().last));
+                } else {
+                    current.last = entry.getValue().last;
+                }
+            }
+
+            events += other.events;
+        }
+
+        /**
+         * The number of members with a pending event.
+         */
+        int size() {
+            return entries.size();
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        AtomixMembershipChange build() {
+            final List<Member> added = new ArrayList<>();
+            final List<Member> removed = new ArrayList<>();
+            final List<Member> updated = new ArrayList<>();
+
+            for (Entry entry : entries.values()) {
+                final ClusterMembershipEvent event = entry.last;
+
+                if (event.type() == ClusterMembershipEvent.Type.MEMBER_REMOVED) {
+                    // a member that joined and left within the batch is not a change
+                    if (entry.firstType != ClusterMembershipEvent.Type.MEMBER_ADDED) {
+                        removed.add(event.subject());
+                    }
+                } else if (entry.firstType == ClusterMembershipEvent.Type.MEMBER_ADDED) {
+                    added.add(event.subject());
+                } else {
+                    updated.add(event.subject());
+                }
+            }
+
+            return new AtomixMembershipChange(added, removed, updated, events);
+        }
+
+        private static final class Entry {
+            final ClusterMembershipEvent.Type firstType;
+            ClusterMembershipEvent last;
+
+            Entry(ClusterMembershipEvent event) {
+                this(event.type(), event);
+            }
+
+            Entry(ClusterMembershipEvent.Type firstType, ClusterMembershipEvent last) {
+                this.firstType = firstType;
+                this.last = last;
+            }
+        }
+    }
+}
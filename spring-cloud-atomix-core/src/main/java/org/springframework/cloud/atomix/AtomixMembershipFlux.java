@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix;
+
+import java.util.concurrent.CompletionException;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.ClusterMembershipEventListener;
+import io.atomix.cluster.ClusterMembershipService;
+import io.atomix.cluster.Member;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Adapts the {@link ClusterMembershipService} listeners to a {@link Flux} of
+ * {@link AtomixMembershipChange}s. It lives apart from the {@link AtomixClient} because
+ * reactor-core is an optional dependency.
+ *
+ * Events are never emitted beyond the demand: while the subscriber does not request
+ * more, the received events are reduced, as they are received, to a single pending entry
+ * per member and then emitted as a single net change, so a slow subscriber sees fewer,
+ * larger changes and the memory held is bounded by the size of the cluster.
+ */
+public final class AtomixMembershipFlux {
+    private AtomixMembershipFlux() {
+    }
+
+    /**
+     * A cold {@link Flux} of the changes of the cluster membership, each subscriber first
+     * receives the current members as added and then the changes as they happen.
+     *
+     * The flux never blocks: it starts emitting once the client has joined the cluster,
+     * and fails if the join fails.
+     */
+    public static Flux<AtomixMembershipChange> create(AtomixClient client) {
+        return Flux.create(
+            sink -> {
+                final Emitter emitter = new Emitter(sink);
+
+                sink.onRequest(n -> emitter.drain());
+
+                // do not block the subscriber if the client is still joining the cluster
+                client.startAsync().whenComplete((result, error) -> {
+                    if (error != null) {
+                        sink.error(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    } else {
+                        emitter.register(client.atomix().membershipService());
+                    }
+                });
+            },
+            // the emitter honours the demand so there is never anything to overflow
+            FluxSink.OverflowStrategy.ERROR
+        );
+    }
+
+    static final class Emitter implements ClusterMembershipEventListener {
+        private final FluxSink<AtomixMembershipChange> sink;
+        private AtomixMembershipChange.Accumulator pending;
+
+        Emitter(FluxSink<AtomixMembershipChange> sink) {
+            this.sink = sink;
+            this.pending = new AtomixMembershipChange.Accumulator();
+        }
+
+        void register(ClusterMembershipService service) {
+            // the listener is added first so that a subscriber that has already gone
+            // away removes it right away instead of leaking it
+            service.addListener(this);
+            sink.onDispose(() -> service.removeListener(this));
+
+            synchronized (this) {
+                // the members that already joined, the change is idempotent if a member
+                // is also reported by an event received in the meantime
+                final AtomixMembershipChange.Accumulator snapshot = new AtomixMembershipChange.Accumulator();
+                for (Member member : service.getMembers()) {
+                    snapshot.add(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_ADDED, member));
+                }
+
+                snapshot.addAll(pending);
+                pending = snapshot;
+            }
+
+            drain();
+        }
+
+        @Override
+        public void onEvent(ClusterMembershipEvent event) {
+            synchronized (this) {
+                pending.add(event);
+            }
+
+            drain();
+        }
+
+        /**
+         * The number of members with events not yet emitted, the events are reduced as
+         * they are received so at most one entry is kept per member.
+         */
+        synchronized int getPending() {
+            return pending.size();
+        }
+
+        synchronized void drain() {
+            if (sink.isCancelled() || pending.isEmpty() || sink.requestedFromDownstream() <= 0) {
+                return;
+            }
+
+            final AtomixMembershipChange change = pending.build();
+            pending = new AtomixMembershipChange.Accumulator();
+
+            if (!change.isEmpty()) {
+                sink.next(change);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.ClusterMembershipEventListener;
+import io.atomix.cluster.Member;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * A {@link MeterBinder} exposing the state of the {@link AtomixClient}: the cluster
+ * membership by member type and state, the rate of membership events and the time it took
+ * to join the cluster.
+ *
+ * The membership gauges are computed from a single snapshot of the cluster members that
+ * is shared by all the gauges and refreshed at most once per {@link #SNAPSHOT_TTL}, so a
+ * scrape does not walk the membership once per type and state.
+ *
+ * All the atomix meters are tagged with the id, zone and rack of the local member, see
+ * {@link #tags(AtomixClient)}.
+ */
+public class AtomixMetrics implements MeterBinder, ClusterMembershipEventListener, DisposableBean {
+    public static final Duration SNAPSHOT_TTL = Duration.ofSeconds(1);
+
+    private final AtomixClient client;
+    private final Map<ClusterMembershipEvent.Type, LongAdder> events;
+    private final AtomicBoolean listening;
+    private volatile MembersSnapshot snapshot;
+
+    public AtomixMetrics(AtomixClient client) {
+        this.client = Objects.requireNonNull(client);
+        this.events = new EnumMap<>(ClusterMembershipEvent.Type.class);
+
+        for (ClusterMembershipEvent.Type type : ClusterMembershipEvent.Type.values()) {
+            this.events.put(type, new LongAdder());
+        }
+
+        this.listening = new AtomicBoolean();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        final Tags tags = tags(client);
+
+        // the listener is added to the membership service directly so binding the meters
+        // neither triggers nor waits for the join of the cluster
+        if (listening.compareAndSet(false, true)) {
+            client.atomix().membershipService().addListener(this);
+        }
+
+        for (Member.Type type : Member.Type.values()) {
+            for (Member.State state : Member.State.values()) {
+                Gauge.builder("atomix.members", this, m -> m.snapshot().count(type, state))
+                    .tags(tags)
+                    .tag("type", type.name())
+                    .tag("state", state.name())
+                    .description("The number of members of the cluster")
+                    .register(registry);
+            }
+        }
+
+        for (Map.Entry<ClusterMembershipEvent.Type, LongAdder> entry : events.entrySet()) {
+            FunctionCounter.builder("atomix.membership.events", entry.getValue(), LongAdder::sum)
+                .tags(tags)
+                .tag("type", entry.getKey().name())
+                .description("The number of cluster membership events received")
+                .register(registry);
+        }
+
+        TimeGauge.builder("atomix.join.time", client, TimeUnit.MILLISECONDS, c -> toMillis(c.getJoinDuration()))
+            .tags(tags)
+            .description("The time it took to join the cluster")
+            .register(registry);
+    }
+
+    @Override
+    public void onEvent(ClusterMembershipEvent event) {
+        final LongAdder counter = events.get(event.type());
+
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (listening.compareAndSet(true, false)) {
+            client.atomix().membershipService().removeListener(this);
+        }
+    }
+
+    /**
+     * The common tags of the atomix meters.
+     */
+    public static Tags tags(AtomixClient client) {
+        final Member member = client.getLocalMember();
+
+        return Tags.of(
+            "member", member.id().id(),
+            "zone", Objects.toString(member.zone(), "unknown"),
+            "rack", Objects.toString(member.rack(), "unknown")
+        );
+    }
+
+    /**
+     * Bind the dispatch queue depth and lag of the given watch, tagged with the given name.
+     */
+    public static void bindTo(MeterRegistry registry, Tags tags, String name, AtomixMemberWatch watch) {
+        Gauge.builder("atomix.watch.queue.depth", watch, AtomixMemberWatch::getQueueDepth)
+            .tags(tags)
+            .tag("watch", name)
+            .description("The membership events waiting to be dispatched")
+            .register(registry);
+
+        FunctionTimer.builder("atomix.watch.dispatch.lag", watch, AtomixMemberWatch::getDispatched, AtomixMemberWatch::getDispatchLag, TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .tag("watch", name)
+            .description("The time membership events waited before being dispatched")
+            .register(registry);
+
+        FunctionCounter.builder("atomix.watch.overflows", watch, AtomixMemberWatch::getOverflows)
+            .tags(tags)
+            .tag("watch", name)
+            .description("The number of times the dispatch queue has overflown")
+            .register(registry);
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private MembersSnapshot snapshot() {
+        final long now = System.nanoTime();
+
+        MembersSnapshot current = this.snapshot;
+
+        if (current == null || now - current.timestamp > SNAPSHOT_TTL.toNanos()) {
+            current = new MembersSnapshot(now, client.isJoined() ? client.getMembers() : Collections.emptyList());
+
+            // concurrent scrapes may both refresh it, the last one wins
+            this.snapshot = current;
+        }
+
+        return current;
+    }
+
+    private static double toMillis(Duration duration) {
+        return duration != null ? duration.toMillis() : Double.NaN;
+    }
+
+    private static final class MembersSnapshot {
+        private final long timestamp;
+        private final long[][] counts;
+
+        MembersSnapshot(long timestamp, Collection<Member> members) {
+            this.timestamp = timestamp;
+            this.counts = new long[Member.Type.values().length][Member.State.values().length];
+
+            for (Member member : members) {
+                final Member.State state = AtomixUtils.getState(member);
+
+                if (member.type() != null && state != null) {
+                    this.counts[member.type().ordinal()][state.ordinal()]++;
+                }
+            }
+        }
+
+        double count(Member.Type type, Member.State state) {
+            return counts[type.ordinal()][state.ordinal()];
+        }
+    }
+}
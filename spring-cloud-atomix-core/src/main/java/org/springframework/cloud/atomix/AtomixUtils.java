@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import io.atomix.cluster.Member;
+
+public final class AtomixUtils {
+    private AtomixUtils() {
+    }
+
+    /**
+     * Gets the state of the given member, or {@code null} if the member does not track it.
+     */
+    public static Member.State getState(Member member) {
+        try {
+            return member.getState();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.atomix;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import io.atomix.cluster.Member;
 import io.atomix.core.Atomix;
 import io.atomix.core.profile.Profile;
@@ -87,4 +89,33 @@ public class AtomixAutoConfigurationTests {
                 }
             );
 	}
+
+    @Test
+    public void testAtomixClientStartedAndStoppedByTheContext() {
+        final AtomicReference<AtomixClient> client = new AtomicReference<>();
+
+        new ApplicationContextRunner()
+            .withConfiguration(
+                AutoConfigurations.of(
+                    AtomixAutoConfiguration.class
+                )
+            )
+            .withPropertyValues(
+                "banner.mode=OFF",
+                "spring.cloud.atomix.local-member.address=" + "localhost:" + SocketUtils.findAvailableTcpPort(),
+                "spring.cloud.atomix.members[0].address=" + "localhost:" + bootstrap.getLocalMember().address().port(),
+                "spring.cloud.atomix.members[0].id=" + bootstrap.getLocalMember().id().id(),
+                "spring.cloud.atomix.members[0].type=" + bootstrap.getLocalMember().type().name()
+            )
+            .run((context) -> {
+                    client.set(context.getBean(AtomixClient.class));
+
+                    assertThat(client.get().isRunning()).isTrue();
+                    assertThat(client.get().isJoined()).isTrue();
+                }
+            );
+
+        assertThat(client.get().isRunning()).isFalse();
+        assertThat(client.get().isJoined()).isFalse();
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.atomix.cluster.Member;
+import io.atomix.cluster.MemberConfig;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import io.atomix.utils.net.Address;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AtomixClientTest {
+    private AtomixClient client;
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void startJoinsTheCluster() {
+        client = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        client.start();
+
+        assertThat(client.startAsync()).isDone();
+        assertThat(client.isRunning()).isTrue();
+        assertThat(client.isJoined()).isTrue();
+        assertThat(client.getJoinDuration()).isNotNull();
+        assertThat(client.getMembers()).contains(client.getLocalMember());
+    }
+
+    @Test
+    public void asyncStartDoesNotWaitForTheJoin() {
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.setAsyncStart(true);
+        configuration.setStartTimeout(Duration.ofMillis(500));
+        configuration.setStopTimeout(Duration.ofMillis(500));
+
+        client = new AtomixClient(createUnreachableClient(), configuration);
+
+        final long start = System.nanoTime();
+        client.start();
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(client.startAsync()).isNotDone();
+        assertThat(client.getJoinDuration()).isNull();
+
+        // started, so the context stops it even if the join never completes
+        assertThat(client.isRunning()).isTrue();
+        assertThat(client.isJoined()).isFalse();
+
+        client.stop();
+
+        assertThat(client.isRunning()).isFalse();
+    }
+
+    @Test
+    public void accessorsFailAfterTheStartTimeout() {
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.setAsyncStart(true);
+        configuration.setStartTimeout(Duration.ofMillis(200));
+
+        client = new AtomixClient(createUnreachableClient(), configuration);
+        client.start();
+
+        final long start = System.nanoTime();
+
+        assertThatThrownBy(client::getMembers)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("did not start within 200 ms");
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void stopReleasesTheCallersWaitingForTheJoin() throws Exception {
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.setAsyncStart(true);
+        configuration.setStartTimeout(Duration.ofSeconds(30));
+        configuration.setStopTimeout(Duration.ofMillis(500));
+
+        client = new AtomixClient(createUnreachableClient(), configuration);
+        client.start();
+
+        final long start = System.nanoTime();
+        final Thread stopper = new Thread(client::stop);
+
+        stopper.start();
+
+        assertThatThrownBy(client::getMembers).isInstanceOf(IllegalStateException.class);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(10));
+
+        stopper.join();
+    }
+
+    @Test
+    public void accessorsFailFastOnceStopped() {
+        client = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        client.start();
+        client.stop();
+
+        assertThat(client.isRunning()).isFalse();
+
+        assertThatThrownBy(client::getMembers)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("stopped");
+        assertThatThrownBy(() -> client.getDocumentTree("test"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("stopped");
+        assertThatThrownBy(client::startAsync)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("stopped");
+
+        // stopping again is a no-op
+        client.stop();
+    }
+
+    @Test
+    public void drainKeepsTheClientUsable() throws Exception {
+        final AtomixClient bootstrap = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        bootstrap.start();
+
+        try {
+            final MemberConfig member = new MemberConfig();
+            member.setId(bootstrap.getLocalMember().id().id());
+            member.setAddress(Address.from("localhost:" + bootstrap.getLocalMember().address().port()));
+            member.setType(Member.Type.PERSISTENT);
+
+            final AtomixConfiguration configuration = new AtomixConfiguration();
+            configuration.getLocalMember().setAddress(Address.from("localhost:" + SocketUtils.findAvailableTcpPort()));
+            configuration.getLocalMember().getMetadata().put(AtomixConstants.META_SERVICE_ID, "my-service");
+            configuration.getMembers().add(member);
+            configuration.getDrain().setPropagationDelay(Duration.ofMillis(100));
+            configuration.getDrain().setTimeout(Duration.ofSeconds(10));
+
+            final AtomicLong inFlight = new AtomicLong(1);
+            final AtomicReference<String> statusBeforeDrain = new AtomicReference<>();
+
+            client = AtomixAutoConfiguration.createAtomixClient(configuration);
+            client.addInFlightRequests(inFlight::get);
+            client.addDrainCallback(() -> statusBeforeDrain.set(client.getLocalMember().metadata().get(AtomixConstants.META_SERVICE_STATUS)));
+            client.start();
+
+            final Thread stopper = new Thread(client::stop);
+            stopper.start();
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!AtomixConstants.STATUS_DRAINING.equals(client.getLocalMember().metadata().get(AtomixConstants.META_SERVICE_STATUS)) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // the in-flight requests can still use the client
+            assertThat(statusBeforeDrain.get()).isNull();
+            assertThat(client.getMembers()).isNotEmpty();
+            assertThat(stopper.isAlive()).isTrue();
+
+            inFlight.set(0);
+            stopper.join(TimeUnit.SECONDS.toMillis(10));
+
+            assertThat(client.getDrainDuration()).isNotNull();
+            assertThatThrownBy(client::getMembers).isInstanceOf(IllegalStateException.class);
+        } finally {
+            bootstrap.stop();
+        }
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static Atomix createBootstrapNode() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        return Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build();
+    }
+
+    /**
+     * A client whose only bootstrap member is not running so the join never completes.
+     */
+    private static Atomix createUnreachableClient() {
+        return Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-client")
+                    .withAddress("localhost", SocketUtils.findAvailableTcpPort())
+                    .withType(Member.Type.EPHEMERAL)
+                    .build())
+            .withMembers(
+                Member.builder("_test-missing")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + SocketUtils.findAvailableTcpPort())
+                    .build())
+            .withProfiles(
+                Profile.CLIENT
+            )
+            .build();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixMemberWatchTest {
+    private AtomixClient client;
+    private RecordingWatch watch;
+
+    @Before
+    public void setUp() {
+        final int port = SocketUtils.findAvailableTcpPort();
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+
+        configuration.getDispatch().setQueueCapacity(2);
+
+        client = new AtomixClient(Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build(),
+            configuration
+        );
+
+        client.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (watch != null) {
+            watch.stop();
+        }
+        if (client != null) {
+            client.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void callerRunsDispatchesInOrderAndNeverConcurrently() throws Exception {
+        client.getConfiguration().getDispatch().setOverflow(AtomixConfiguration.DispatchConfig.OverflowPolicy.CALLER_RUNS);
+
+        watch = new RecordingWatch(client);
+        watch.start();
+
+        final List<String> ids = IntStream.range(0, 50).mapToObj(i -> "m" + i).collect(Collectors.toList());
+
+        for (String id : ids) {
+            watch.onEvent(added(id));
+        }
+
+        awaitDispatched(ids.size());
+
+        assertThat(watch.getDispatched()).isEqualTo(ids.size());
+        assertThat(watch.getOverflows()).isGreaterThan(0);
+        assertThat(watch.maxConcurrency.get()).isEqualTo(1);
+        assertThat(watch.ids()).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void coalesceDropsTheQueuedEventsAndResyncs() throws Exception {
+        watch = new RecordingWatch(client);
+        watch.start();
+
+        for (int i = 0; i < 50; i++) {
+            watch.onEvent(added("m" + i));
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (watch.resyncs.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(watch.getOverflows()).isGreaterThan(0);
+        assertThat(watch.resyncs.get()).isGreaterThan(0);
+        assertThat(watch.ids().size()).isLessThan(50);
+        assertThat(watch.maxConcurrency.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void batchReplayKeepsTheUpdatedType() throws Exception {
+        client.getConfiguration().getDispatch().setQueueCapacity(16);
+        client.getConfiguration().getDispatch().setBatchWindow(Duration.ofMillis(100));
+
+        watch = new RecordingWatch(client);
+        watch.start();
+
+        watch.onEvent(event(ClusterMembershipEvent.Type.MEMBER_ADDED, "m1"));
+        watch.onEvent(event(ClusterMembershipEvent.Type.MEMBER_REMOVED, "m2"));
+        watch.onEvent(event(ClusterMembershipEvent.Type.MEMBER_ADDED, "m2"));
+        watch.onEvent(event(ClusterMembershipEvent.Type.MEMBER_UPDATED, "m3"));
+
+        awaitDispatched(3);
+
+        assertThat(watch.events()).containsExactly(
+            "MEMBER_ADDED:m1",
+            "MEMBER_UPDATED:m2",
+            "MEMBER_UPDATED:m3");
+    }
+
+    @Test
+    public void callerRunsDoesNotWaitForTheBatchWindow() throws Exception {
+        client.getConfiguration().getDispatch().setOverflow(AtomixConfiguration.DispatchConfig.OverflowPolicy.CALLER_RUNS);
+        client.getConfiguration().getDispatch().setQueueCapacity(1);
+        client.getConfiguration().getDispatch().setBatchWindow(Duration.ofMillis(500));
+        client.getConfiguration().getDispatch().setMaxLatency(Duration.ofSeconds(5));
+
+        watch = new RecordingWatch(client);
+        watch.delay = 0;
+        watch.start();
+
+        final List<String> ids = IntStream.range(0, 1000).mapToObj(i -> "m" + i).collect(Collectors.toList());
+        long maxDelivery = 0;
+
+        for (String id : ids) {
+            final long start = System.nanoTime();
+            watch.onEvent(added(id));
+            maxDelivery = Math.max(maxDelivery, System.nanoTime() - start);
+        }
+
+        awaitDispatched(ids.size());
+
+        // the events collected by the dispatch thread are dispatched first by the caller
+        assertThat(watch.ids()).containsExactlyElementsOf(ids);
+        assertThat(watch.getOverflows()).isGreaterThan(0);
+        assertThat(maxDelivery).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(watch.maxConcurrency.get()).isEqualTo(1);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private void awaitDispatched(int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (watch.ids().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static ClusterMembershipEvent added(String id) {
+        return event(ClusterMembershipEvent.Type.MEMBER_ADDED, id);
+    }
+
+    private static ClusterMembershipEvent event(ClusterMembershipEvent.Type type, String id) {
+        return new ClusterMembershipEvent(type, Member.builder(id).withAddress("localhost:5000").build());
+    }
+
+    private static final class RecordingWatch extends AtomixMemberWatch {
+        private final List<String> ids = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+        private final AtomicInteger resyncs = new AtomicInteger();
+        private volatile long delay = 5;
+
+        RecordingWatch(AtomixClient client) {
+            super(client);
+        }
+
+        @Override
+        protected void onMembershipChanged(ClusterMembershipEvent event) {
+            maxConcurrency.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+            try {
+                // slow enough for the queue to overflow
+                Thread.sleep(delay);
+                events.add(event.type() + ":" + event.subject().id().id());
+                ids.add(event.subject().id().id());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        @Override
+        protected void onMembershipResync() {
+            resyncs.incrementAndGet();
+        }
+
+        List<String> events() {
+            synchronized (events) {
+                return new ArrayList<>(events);
+            }
+        }
+
+        List<String> ids() {
+            synchronized (ids) {
+                return new ArrayList<>(ids);
+            }
+        }
+    }
+}
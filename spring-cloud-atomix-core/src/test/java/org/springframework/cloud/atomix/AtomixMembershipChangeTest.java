@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import java.util.Arrays;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixMembershipChangeTest {
+    @Test
+    public void testAggregate() {
+        final Member m1 = member("m1", 5001);
+        final Member m2 = member("m2", 5002);
+        final Member m3 = member("m3", 5003);
+        final Member m4 = member("m4", 5004);
+
+        AtomixMembershipChange change = AtomixMembershipChange.of(Arrays.asList(
+            // joined
+            event(ClusterMembershipEvent.Type.MEMBER_ADDED, m1),
+            // joined and left
+            event(ClusterMembershipEvent.Type.MEMBER_ADDED, m2),
+            event(ClusterMembershipEvent.Type.MEMBER_REMOVED, m2),
+            // left
+            event(ClusterMembershipEvent.Type.MEMBER_REMOVED, m3),
+            // left and joined again
+            event(ClusterMembershipEvent.Type.MEMBER_REMOVED, m4),
+            event(ClusterMembershipEvent.Type.MEMBER_ADDED, m4)
+        ));
+
+        assertThat(change.getEvents()).isEqualTo(6);
+        assertThat(change.getAdded()).containsExactly(m1);
+        assertThat(change.getRemoved()).containsExactly(m3);
+        assertThat(change.getUpdated()).containsExactly(m4);
+    }
+
+    private static Member member(String id, int port) {
+        return Member.builder(id).withAddress("localhost:" + port).build();
+    }
+
+    private static ClusterMembershipEvent event(ClusterMembershipEvent.Type type, Member member) {
+        return new ClusterMembershipEvent(type, member);
+    }
+}
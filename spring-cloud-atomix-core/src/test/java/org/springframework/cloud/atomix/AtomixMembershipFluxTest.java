@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.util.SocketUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixMembershipFluxTest {
+    private final List<Atomix> members = new ArrayList<>();
+    private AtomixClient client;
+    private Recorder recorder;
+
+    @After
+    public void tearDown() {
+        if (recorder != null) {
+            recorder.dispose();
+        }
+
+        members.forEach(member -> member.stop().join());
+
+        if (client != null) {
+            client.stop();
+        }
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void startsWithTheCurrentMembers() throws Exception {
+        client = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        client.start();
+
+        join("m1");
+
+        recorder = subscribe();
+        recorder.request(1);
+
+        final AtomixMembershipChange change = recorder.next();
+
+        assertThat(ids(change.getAdded())).contains("_test-service", "m1");
+    }
+
+    @Test
+    public void coalescesTheEventsWhileThereIsNoDemand() throws Exception {
+        client = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        client.start();
+
+        recorder = subscribe();
+        recorder.request(1);
+        recorder.next();
+
+        final Atomix m1 = join("m1");
+        join("m2");
+        members.remove(m1);
+        m1.stop().join();
+
+        // no demand, nothing emitted
+        assertThat(recorder.changes.poll(500, TimeUnit.MILLISECONDS)).isNull();
+
+        recorder.request(1);
+
+        final AtomixMembershipChange change = recorder.next();
+
+        // m1 joined and left while the subscriber was not requesting
+        assertThat(ids(change.getAdded())).containsExactly("m2");
+        assertThat(change.getRemoved()).isEmpty();
+        assertThat(change.getEvents()).isGreaterThanOrEqualTo(3);
+
+        assertThat(recorder.changes.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void pendingEventsAreBoundedByTheMembers() throws Exception {
+        final AtomicReference<AtomixMembershipFlux.Emitter> emitter = new AtomicReference<>();
+
+        recorder = new Recorder();
+        Flux.<AtomixMembershipChange>create(sink -> {
+            emitter.set(new AtomixMembershipFlux.Emitter(sink));
+            sink.onRequest(n -> emitter.get().drain());
+        }).subscribe(recorder);
+
+        final List<Member> cluster = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            cluster.add(Member.builder("m" + i).withAddress("localhost:" + (5000 + i)).build());
+        }
+
+        cluster.forEach(member -> emitter.get().onEvent(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_ADDED, member)));
+
+        // no demand: the events are reduced as they are received
+        for (int i = 0; i < 10_000; i++) {
+            final Member member = cluster.get(i % cluster.size());
+            final ClusterMembershipEvent.Type type = i % 2 == 0
+                ? ClusterMembershipEvent.Type.MEMBER_REMOVED
+                : ClusterMembershipEvent.Type.MEMBER_ADDED;
+
+            emitter.get().onEvent(new ClusterMembershipEvent(type, member));
+
+            assertThat(emitter.get().getPending()).isLessThanOrEqualTo(cluster.size());
+        }
+
+        emitter.get().onEvent(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_REMOVED, cluster.get(0)));
+
+        assertThat(recorder.changes).isEmpty();
+        assertThat(emitter.get().getPending()).isEqualTo(cluster.size());
+
+        recorder.request(1);
+
+        final AtomixMembershipChange change = recorder.next();
+
+        // the first type and the latest event of each member: all joined within the
+        // batch, m1 is last seen added while m0 and m2 are last seen removed
+        assertThat(ids(change.getAdded())).containsExactly("m1");
+        assertThat(change.getRemoved()).isEmpty();
+        assertThat(change.getEvents()).isEqualTo(10_004);
+        assertThat(emitter.get().getPending()).isZero();
+    }
+
+    @Test
+    public void failsWhenTheJoinFails() throws Exception {
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.setAsyncStart(true);
+
+        client = new AtomixClient(createUnreachableClient(), configuration);
+        client.start();
+
+        recorder = subscribe();
+        recorder.request(1);
+
+        client.stop();
+
+        final Throwable error = recorder.errors.poll(10, TimeUnit.SECONDS);
+
+        assertThat(error).isInstanceOf(IllegalStateException.class).hasMessageContaining("stopped");
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private Recorder subscribe() {
+        final Recorder recorder = new Recorder();
+
+        AtomixMembershipFlux.create(client).subscribe(recorder);
+
+        return recorder;
+    }
+
+    private Atomix join(String id) {
+        final Atomix member = Atomix.builder()
+            .withLocalMember(
+                Member.builder(id)
+                    .withAddress("localhost", SocketUtils.findAvailableTcpPort())
+                    .withType(Member.Type.EPHEMERAL)
+                    .build())
+            .withMembers(
+                client.getLocalMember())
+            .withProfiles(
+                Profile.CLIENT)
+            .build();
+
+        member.start().join();
+        members.add(member);
+
+        return member;
+    }
+
+    private static List<String> ids(List<Member> members) {
+        return members.stream().map(m -> m.id().id()).collect(Collectors.toList());
+    }
+
+    private static Atomix createBootstrapNode() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        return Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build();
+    }
+
+    private static Atomix createUnreachableClient() {
+        return Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-client")
+                    .withAddress("localhost", SocketUtils.findAvailableTcpPort())
+                    .withType(Member.Type.EPHEMERAL)
+                    .build())
+            .withMembers(
+                Member.builder("_test-missing")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + SocketUtils.findAvailableTcpPort())
+                    .build())
+            .withProfiles(
+                Profile.CLIENT
+            )
+            .build();
+    }
+
+    private static final class Recorder extends BaseSubscriber<AtomixMembershipChange> {
+        private final BlockingQueue<AtomixMembershipChange> changes = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // the demand is driven by the test
+        }
+
+        @Override
+        protected void hookOnNext(AtomixMembershipChange value) {
+            changes.add(value);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        AtomixMembershipChange next() throws InterruptedException {
+            final AtomixMembershipChange change = changes.poll(10, TimeUnit.SECONDS);
+
+            assertThat(change).isNotNull();
+
+            return change;
+        }
+    }
+}
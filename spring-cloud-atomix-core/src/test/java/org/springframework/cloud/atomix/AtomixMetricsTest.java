@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix;
+
+import io.atomix.cluster.Member;
+import io.atomix.core.Atomix;
+import io.atomix.core.profile.Profile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixMetricsTest {
+    private AtomixClient client;
+    private AtomixMetrics metrics;
+
+    @After
+    public void tearDown() {
+        if (metrics != null) {
+            metrics.destroy();
+        }
+        if (client != null) {
+            client.stop();
+        }
+    }
+
+    @Test
+    public void bindingDoesNotJoinTheCluster() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        client = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        metrics = new AtomixMetrics(client);
+        metrics.bindTo(registry);
+
+        assertThat(client.isRunning()).isFalse();
+        assertThat(members(registry, Member.Type.PERSISTENT, Member.State.ACTIVE)).isEqualTo(0);
+        assertThat(client.isRunning()).isFalse();
+    }
+
+    @Test
+    public void membersAreCountedFromASnapshot() throws Exception {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        client = new AtomixClient(createBootstrapNode(), new AtomixConfiguration());
+        client.start();
+
+        metrics = new AtomixMetrics(client);
+        metrics.bindTo(registry);
+
+        assertThat(members(registry, Member.Type.PERSISTENT, Member.State.ACTIVE)).isEqualTo(1);
+        assertThat(members(registry, Member.Type.EPHEMERAL, Member.State.ACTIVE)).isEqualTo(0);
+
+        client.stop();
+
+        // still served from the snapshot
+        assertThat(members(registry, Member.Type.PERSISTENT, Member.State.ACTIVE)).isEqualTo(1);
+
+        Thread.sleep(AtomixMetrics.SNAPSHOT_TTL.toMillis() + 100);
+
+        assertThat(members(registry, Member.Type.PERSISTENT, Member.State.ACTIVE)).isEqualTo(0);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static double members(SimpleMeterRegistry registry, Member.Type type, Member.State state) {
+        return registry.get("atomix.members")
+            .tag("type", type.name())
+            .tag("state", state.name())
+            .gauge()
+            .value();
+    }
+
+    private static Atomix createBootstrapNode() {
+        final int port = SocketUtils.findAvailableTcpPort();
+
+        return Atomix.builder()
+            .withLocalMember(
+                Member.builder("_test-service")
+                    .withAddress("localhost:" + port)
+                    .withType(Member.Type.PERSISTENT)
+                    .build())
+            .withMembers(
+                Member.builder("_test-service")
+                    .withType(Member.Type.PERSISTENT)
+                    .withAddress("localhost:" + port)
+                    .build())
+            .withProfiles(
+                Profile.DATA_GRID
+            )
+            .build();
+    }
+}
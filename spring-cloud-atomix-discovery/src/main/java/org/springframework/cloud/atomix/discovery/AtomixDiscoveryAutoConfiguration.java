@@ -16,14 +16,18 @@
 
 package org.springframework.cloud.atomix.discovery;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.discovery.loadbalancer.AtomixServiceInstanceListSuppliers;
 import org.springframework.cloud.client.CommonsClientAutoConfiguration;
 import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClientAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
 
 /**
  * @author Luca Burgazzoli
@@ -35,12 +39,44 @@ import org.springframework.context.annotation.Configuration;
 @EnableConfigurationProperties(AtomixDiscoveryConfiguration.class)
 public class AtomixDiscoveryAutoConfiguration {
 
-    @Bean
+    @Bean(initMethod = "start", destroyMethod = "stop")
     @ConditionalOnMissingBean
-    public AtomixDiscoveryClient atomixDiscoveryClient(
+    public AtomixServiceCatalog atomixServiceCatalog(
             AtomixClient client,
             AtomixDiscoveryConfiguration discoveryProperties) {
-        return new AtomixDiscoveryClient(client, discoveryProperties);
+        return new AtomixServiceCatalog(client, discoveryProperties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AtomixDiscoveryClient atomixDiscoveryClient(AtomixServiceCatalog catalog) {
+        return new AtomixDiscoveryClient(catalog);
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    protected static class AtomixDiscoveryMetricsConfig {
+        @Bean
+        @ConditionalOnMissingBean
+        public AtomixDiscoveryMetrics atomixDiscoveryMetrics(AtomixClient client, AtomixServiceCatalog catalog) {
+            return new AtomixDiscoveryMetrics(client, catalog);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(Flux.class)
+    protected static class AtomixReactiveDiscoveryConfig {
+        @Bean
+        @ConditionalOnMissingBean
+        public AtomixReactiveDiscoveryClient atomixReactiveDiscoveryClient(AtomixServiceCatalog catalog) {
+            return new AtomixReactiveDiscoveryClient(catalog);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AtomixServiceInstanceListSuppliers atomixServiceInstanceListSuppliers(AtomixServiceCatalog catalog) {
+            return new AtomixServiceInstanceListSuppliers(catalog);
+        }
     }
 
     @Bean
@@ -18,11 +18,7 @@ package org.springframework.cloud.atomix.discovery;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
-import org.springframework.cloud.atomix.AtomixClient;
-import org.springframework.cloud.atomix.AtomixConstants;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 
@@ -30,12 +26,10 @@ import org.springframework.cloud.client.discovery.DiscoveryClient;
  * @author Luca Burgazzoli
  */
 public class AtomixDiscoveryClient implements DiscoveryClient {
-    private final AtomixClient client;
-    private final AtomixDiscoveryConfiguration properties;
+    private final AtomixServiceCatalog catalog;
 
-    public AtomixDiscoveryClient(AtomixClient client, AtomixDiscoveryConfiguration properties) {
-        this.client = client;
-        this.properties = properties;
+    public AtomixDiscoveryClient(AtomixServiceCatalog catalog) {
+        this.catalog = catalog;
     }
 
     @Override
@@ -49,17 +43,11 @@ public class AtomixDiscoveryClient implements DiscoveryClient {
             return Collections.emptyList();
         }
 
-        return AtomixDiscoveryUtils.getServices(this.client, this.properties)
-            .filter(member -> Objects.equals(serviceId, member.metadata().get(AtomixConstants.META_SERVICE_ID)))
-            .map(AtomixServiceInstance::new)
-            .collect(Collectors.toList());
+        return this.catalog.getInstances(serviceId);
     }
 
     @Override
     public List<String> getServices() {
-        return AtomixDiscoveryUtils.getServices(this.client, this.properties)
-            .map(member -> member.metadata().get(AtomixConstants.META_SERVICE_ID))
-            .distinct()
-            .collect(Collectors.toList());
+        return this.catalog.getServices();
     }
 }
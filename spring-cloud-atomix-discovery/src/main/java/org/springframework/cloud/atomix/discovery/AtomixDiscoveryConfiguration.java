@@ -52,10 +52,38 @@ public class AtomixDiscoveryConfiguration {
 
 
     public static class ServiceConfig {
+        /**
+         * Metadata entries the members of the service must have.
+         */
         private Map<String, String> metadata = new HashMap<>();
 
+        /**
+         * A selector expression the metadata of the members of the service must match,
+         * see {@link AtomixMetadataSelector}.
+         */
+        private String selector;
+
+        private AtomixMetadataSelector compiledSelector = AtomixMetadataSelector.ALL;
+
         public Map<String, String> getMetadata() {
             return metadata;
         }
+
+        public String getSelector() {
+            return selector;
+        }
+
+        public void setSelector(String selector) {
+            this.compiledSelector = AtomixMetadataSelector.parse(selector);
+            this.selector = selector;
+        }
+
+        /**
+         * Checks if the given member metadata satisfies both the required metadata
+         * entries and the selector.
+         */
+        public boolean matches(Map<String, String> metadata) {
+            return metadata.entrySet().containsAll(this.metadata.entrySet()) && compiledSelector.test(metadata);
+        }
     }
 }
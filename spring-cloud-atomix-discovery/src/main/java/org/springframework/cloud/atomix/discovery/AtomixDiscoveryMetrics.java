@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixMetrics;
+
+/**
+ * A {@link MeterBinder} exposing the state of the {@link AtomixServiceCatalog}: the
+ * number of services and instances, the instance lookups and how often the instances of
+ * a service have changed together with the membership dispatch statistics of the catalog.
+ */
+public class AtomixDiscoveryMetrics implements MeterBinder {
+    private final AtomixClient client;
+    private final AtomixServiceCatalog catalog;
+
+    public AtomixDiscoveryMetrics(AtomixClient client, AtomixServiceCatalog catalog) {
+        this.client = Objects.requireNonNull(client);
+        this.catalog = Objects.requireNonNull(catalog);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        final Tags tags = AtomixMetrics.tags(client);
+
+        Gauge.builder("atomix.discovery.services", catalog, c -> c.getServices().size())
+            .tags(tags)
+            .description("The number of services known to the catalog")
+            .register(registry);
+
+        Gauge.builder("atomix.discovery.instances", catalog, AtomixServiceCatalog::getInstanceCount)
+            .tags(tags)
+            .description("The number of service instances known to the catalog")
+            .register(registry);
+
+        FunctionTimer.builder("atomix.discovery.lookup", catalog, AtomixServiceCatalog::getLookups, AtomixServiceCatalog::getLookupTime, TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .description("The instance lookups served by the catalog")
+            .register(registry);
+
+        FunctionCounter.builder("atomix.discovery.updates", catalog, AtomixServiceCatalog::getUpdates)
+            .tags(tags)
+            .description("The number of times the instances of a service have changed")
+            .register(registry);
+
+        AtomixMetrics.bindTo(registry, tags, "catalog", catalog);
+    }
+}
@@ -29,19 +29,29 @@ public final class AtomixDiscoveryUtils {
 
     public static Stream<Member> getServices(AtomixClient client, AtomixDiscoveryConfiguration properties) {
         return client.getMembers().stream()
-            .filter(member -> {
-                return member.metadata().containsKey(AtomixConstants.META_SERVICE_ID);
-            })
-            .filter(member -> {
-                final Map<String, String> metadata = member.metadata();
-                final String serviceId = metadata.get(AtomixConstants.META_SERVICE_ID);
-                final AtomixDiscoveryConfiguration.ServiceConfig serviceConfig = properties.getServices().get(serviceId);
-
-                if (serviceConfig != null) {
-                    return metadata.isEmpty() || metadata.entrySet().containsAll(serviceConfig.getMetadata().entrySet());
-                }
-
-                return true;
-            });
+            .filter(member -> isService(member, properties));
+    }
+
+    public static boolean isService(Member member, AtomixDiscoveryConfiguration properties) {
+        final Map<String, String> metadata = member.metadata();
+        final String serviceId = metadata.get(AtomixConstants.META_SERVICE_ID);
+
+        if (serviceId == null) {
+            return false;
+        }
+
+        // instances registered without a status are considered up
+        final String status = metadata.get(AtomixConstants.META_SERVICE_STATUS);
+        if (status != null && !AtomixConstants.STATUS_UP.equals(status)) {
+            return false;
+        }
+
+        final AtomixDiscoveryConfiguration.ServiceConfig serviceConfig = properties.getServices().get(serviceId);
+
+        if (serviceConfig != null) {
+            return serviceConfig.matches(metadata);
+        }
+
+        return true;
     }
 }
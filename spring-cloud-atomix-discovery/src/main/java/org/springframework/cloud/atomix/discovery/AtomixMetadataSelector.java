@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A predicate over member metadata compiled from a label-selector style expression.
+ *
+ * The expression is a comma separated list of requirements which must all be met:
+ *
+ * <pre>{@code
+ * key                 the key exists
+ * !key                the key does not exist
+ * key=value           the value is equal to the given one (also key==value)
+ * key!=value          the key does not exist or the value is not the given one
+ * key in (v1, v2)     the value is one of the given ones
+ * key notin (v1, v2)  the key does not exist or the value is none of the given ones
+ * key>=1.2            the value, compared as a version, is greater than or equal to
+ *                     the given one (also >, <= and <)
+ * }</pre>
+ *
+ * For example {@code zone in (eu-1, eu-2), version>=1.2, version<2, !canary}.
+ */
+public final class AtomixMetadataSelector implements Predicate<Map<String, String>> {
+    /**
+     * A selector without requirements, it matches any metadata.
+     */
+    public static final AtomixMetadataSelector ALL = new AtomixMetadataSelector("", Collections.emptyList());
+
+    private static final Pattern SET = Pattern.compile("^([^\\s!=<>(),]+)\\s+(in|notin)\\s*\\((.*)\\)$");
+    private static final Pattern NOT_EXISTS = Pattern.compile("^!\\s*([^\\s!=<>(),]+)$");
+    private static final Pattern COMPARE = Pattern.compile("^([^\\s!=<>(),]+)\\s*(==|=|!=|>=|<=|>|<)\\s*([^\\s!=<>(),]*)$");
+    private static final Pattern EXISTS = Pattern.compile("^([^\\s!=<>(),]+)$");
+
+    private final String expression;
+    private final List<Predicate<Map<String, String>>> requirements;
+
+    private AtomixMetadataSelector(String expression, List<Predicate<Map<String, String>>> requirements) {
+        this.expression = expression;
+        this.requirements = requirements;
+    }
+
+    @Override
+    public boolean test(Map<String, String> metadata) {
+        for (int i = 0; i < requirements.size(); i++) {
+            if (!requirements.get(i).test(metadata)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Compile the given expression.
+     *
+     * @throws IllegalArgumentException if the expression is not valid.
+     */
+    public static AtomixMetadataSelector parse(String expression) {
+        if (expression == null || expression.trim().isEmpty()) {
+            return ALL;
+        }
+
+        final List<Predicate<Map<String, String>>> requirements = new ArrayList<>();
+        for (String requirement : split(expression)) {
+            requirements.add(compile(requirement));
+        }
+
+        return new AtomixMetadataSelector(expression, Collections.unmodifiableList(requirements));
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private static List<String> split(String expression) {
+        final List<String> answer = new ArrayList<>();
+
+        int depth = 0;
+        int start = 0;
+
+        for (int i = 0; i < expression.length(); i++) {
+            final char c = expression.charAt(i);
+
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                answer.add(expression.substring(start, i).trim());
+                start = i + 1;
+            }
+
+            if (depth < 0 || depth > 1) {
+                throw new IllegalArgumentException("Unbalanced parentheses in selector: " + expression);
+            }
+        }
+
+        if (depth != 0) {
+            throw new IllegalArgumentException("Unbalanced parentheses in selector: " + expression);
+        }
+
+        answer.add(expression.substring(start).trim());
+
+        return answer;
+    }
+
+    private static Predicate<Map<String, String>> compile(String requirement) {
+        Matcher matcher = SET.matcher(requirement);
+        if (matcher.matches()) {
+            final String key = matcher.group(1);
+            final Set<String> values = Arrays.stream(matcher.group(3).split(","))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .collect(Collectors.toCollection(HashSet::new));
+
+            if ("in".equals(matcher.group(2))) {
+                return m -> values.contains(m.get(key));
+            } else {
+                return m -> !values.contains(m.get(key));
+            }
+        }
+
+        matcher = NOT_EXISTS.matcher(requirement);
+        if (matcher.matches()) {
+            final String key = matcher.group(1);
+
+            return m -> !m.containsKey(key);
+        }
+
+        matcher = COMPARE.matcher(requirement);
+        if (matcher.matches()) {
+            final String key = matcher.group(1);
+            final String operator = matcher.group(2);
+            final String value = matcher.group(3);
+
+            switch (operator) {
+            case "=":
+            case "==":
+                return m -> Objects.equals(value, m.get(key));
+            case "!=":
+                return m -> !Objects.equals(value, m.get(key));
+            case ">=":
+                return m -> m.get(key) != null && compareVersions(m.get(key), value) >= 0;
+            case ">":
+                return m -> m.get(key) != null && compareVersions(m.get(key), value) > 0;
+            case "<=":
+                return m -> m.get(key) != null && compareVersions(m.get(key), value) <= 0;
+            default:
+                return m -> m.get(key) != null && compareVersions(m.get(key), value) < 0;
+            }
+        }
+
+        matcher = EXISTS.matcher(requirement);
+        if (matcher.matches()) {
+            final String key = matcher.group(1);
+
+            return m -> m.containsKey(key);
+        }
+
+        throw new IllegalArgumentException("Invalid selector requirement: " + requirement);
+    }
+
+    /**
+     * Compare two versions segment by segment, segments are separated by dots or dashes
+     * and compared numerically when both are numbers, missing segments count as zero.
+     */
+    static int compareVersions(String v1, String v2) {
+        final String[] s1 = v1.split("[.-]");
+        final String[] s2 = v2.split("[.-]");
+
+        for (int i = 0; i < Math.max(s1.length, s2.length); i++) {
+            final String p1 = i < s1.length ? s1[i] : "0";
+            final String p2 = i < s2.length ? s2[i] : "0";
+
+            final int result = isNumber(p1) && isNumber(p2)
+                ? Long.compare(Long.parseLong(p1), Long.parseLong(p2))
+                : p1.compareTo(p2);
+
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return 0;
+    }
+
+    private static boolean isNumber(String value) {
+        if (value.isEmpty() || value.length() > 18) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
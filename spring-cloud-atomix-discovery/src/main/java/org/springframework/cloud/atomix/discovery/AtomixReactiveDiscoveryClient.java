@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.Objects;
+
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Flux;
+
+/**
+ * A non blocking discovery client: lookups are served from the immutable lists indexed
+ * by the {@link AtomixServiceCatalog} when subscribed, they never wait on the cluster.
+ */
+public class AtomixReactiveDiscoveryClient {
+    private final AtomixServiceCatalog catalog;
+
+    public AtomixReactiveDiscoveryClient(AtomixServiceCatalog catalog) {
+        this.catalog = Objects.requireNonNull(catalog);
+    }
+
+    public String description() {
+        return "Spring Cloud Atomix Reactive Discovery Client";
+    }
+
+    public Flux<ServiceInstance> getInstances(String serviceId) {
+        if (serviceId == null) {
+            return Flux.empty();
+        }
+
+        return Flux.defer(() -> Flux.fromIterable(this.catalog.getInstances(serviceId)));
+    }
+
+    public Flux<String> getServices() {
+        return Flux.defer(() -> Flux.fromIterable(this.catalog.getServices()));
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableList;
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import io.atomix.cluster.MemberId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixMemberWatch;
+import org.springframework.cloud.atomix.AtomixMembershipChange;
+import org.springframework.cloud.atomix.AtomixUtils;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * An index of the services registered in the Atomix cluster, keyed by service id.
+ *
+ * The index is built from the cluster membership when the catalog is started and is then
+ * kept up to date by {@link ClusterMembershipEvent}s so lookups do not need to scan the
+ * whole membership. The instance lists handed out are immutable and are only rebuilt for
+ * the services affected by a membership change, {@link Listener}s are notified only when
+ * the instances of a service actually changed.
+ */
+public class AtomixServiceCatalog extends AtomixMemberWatch {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomixServiceCatalog.class);
+
+    private final AtomixClient client;
+    private final AtomixDiscoveryConfiguration properties;
+    private final Map<MemberId, AtomixServiceInstance> members;
+    private final Map<String, Map<MemberId, AtomixServiceInstance>> services;
+    private final Map<MemberId, Member.State> states;
+    private final Map<MemberId, Map<String, String>> rejected;
+    private final ConcurrentMap<String, List<ServiceInstance>> instances;
+    private final List<Listener> listeners;
+    private final LongAdder lookups;
+    private final LongAdder lookupTime;
+    private final LongAdder updates;
+    private volatile List<String> serviceIds;
+
+    public AtomixServiceCatalog(AtomixClient client, AtomixDiscoveryConfiguration properties) {
+        super(client);
+
+        this.client = Objects.requireNonNull(client);
+        this.properties = Objects.requireNonNull(properties);
+        this.members = new HashMap<>();
+        this.services = new HashMap<>();
+        this.states = new HashMap<>();
+        this.rejected = new HashMap<>();
+        this.instances = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.lookups = new LongAdder();
+        this.lookupTime = new LongAdder();
+        this.updates = new LongAdder();
+        this.serviceIds = Collections.emptyList();
+    }
+
+    // ************************
+    // Lifecycle
+    // ************************
+
+    @Override
+    public void start() {
+        if (!isRunning()) {
+            super.start();
+
+            rebuild();
+        }
+    }
+
+    // ************************
+    // Lookup
+    // ************************
+
+    public List<ServiceInstance> getInstances(String serviceId) {
+        final long start = System.nanoTime();
+        final List<ServiceInstance> answer = instances.get(serviceId);
+
+        lookups.increment();
+        lookupTime.add(System.nanoTime() - start);
+
+        return answer != null ? answer : Collections.emptyList();
+    }
+
+    public List<String> getServices() {
+        return serviceIds;
+    }
+
+    /**
+     * The number of instance lookups served.
+     */
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * The total time, in nanoseconds, spent serving instance lookups.
+     */
+    public long getLookupTime() {
+        return lookupTime.sum();
+    }
+
+    /**
+     * The number of times the instances of a service have been republished.
+     */
+    public long getUpdates() {
+        return updates.sum();
+    }
+
+    /**
+     * The number of indexed service instances.
+     */
+    public synchronized int getInstanceCount() {
+        return members.size();
+    }
+
+    public void addListener(Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        this.listeners.remove(listener);
+    }
+
+    // ************************
+    // Index maintenance
+    // ************************
+
+    @Override
+    protected synchronized void onMembershipChanged(ClusterMembershipEvent event) {
+        final Set<String> changed = new LinkedHashSet<>();
+
+        if (event.type() == ClusterMembershipEvent.Type.MEMBER_REMOVED) {
+            remove(event.subject(), changed);
+        } else {
+            update(event.subject(), changed);
+        }
+
+        publish(changed);
+    }
+
+    @Override
+    protected synchronized void onMembershipChanged(AtomixMembershipChange change) {
+        final Set<String> changed = new LinkedHashSet<>();
+
+        change.getRemoved().forEach(member -> remove(member, changed));
+        change.getAdded().forEach(member -> update(member, changed));
+        change.getUpdated().forEach(member -> update(member, changed));
+
+        // each affected service is republished once per batch
+        publish(changed);
+    }
+
+    @Override
+    protected void onMembershipResync() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the whole index from the current cluster membership, only the services whose
+     * instances differ from the indexed ones are republished.
+     */
+    protected synchronized void rebuild() {
+        final Map<MemberId, AtomixServiceInstance> currentMembers = new HashMap<>();
+        final Map<String, Map<MemberId, AtomixServiceInstance>> currentServices = new HashMap<>();
+        final Map<MemberId, Member.State> currentStates = new HashMap<>();
+        final Set<MemberId> ids = new HashSet<>();
+
+        for (Member member : client.getMembers()) {
+            final AtomixServiceInstance previous = members.get(member.id());
+
+            AtomixServiceInstance instance;
+            try {
+                instance = select(member, previous);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to index member {}, keeping its previous instance", member.id(), e);
+                instance = previous;
+            }
+
+            ids.add(member.id());
+
+            if (instance != null) {
+                currentMembers.put(member.id(), instance);
+                currentStates.put(member.id(), AtomixUtils.getState(member));
+                currentServices.computeIfAbsent(instance.getServiceId(), k -> new LinkedHashMap<>()).put(member.id(), instance);
+            }
+        }
+
+        final Set<String> changed = new LinkedHashSet<>();
+        for (String serviceId : services.keySet()) {
+            if (!isSame(services.get(serviceId), states, currentServices.get(serviceId), currentStates)) {
+                changed.add(serviceId);
+            }
+        }
+        for (String serviceId : currentServices.keySet()) {
+            if (!services.containsKey(serviceId)) {
+                changed.add(serviceId);
+            }
+        }
+
+        members.clear();
+        members.putAll(currentMembers);
+        services.clear();
+        services.putAll(currentServices);
+        states.clear();
+        states.putAll(currentStates);
+        rejected.keySet().retainAll(ids);
+
+        publish(changed);
+
+        LOGGER.debug("Service catalog rebuilt (services: {}, instances: {}, changed: {})", serviceIds, members.size(), changed);
+    }
+
+    private void update(Member member, Set<String> changed) {
+        if (isUnchanged(member)) {
+            return;
+        }
+
+        // the new instance is built before the previous one is unindexed so a member that
+        // can not be turned into an instance leaves the index untouched
+        final AtomixServiceInstance current = select(member, members.get(member.id()));
+        final AtomixServiceInstance previous = unindex(member.id());
+
+        if (current != null) {
+            members.put(member.id(), current);
+            states.put(member.id(), AtomixUtils.getState(member));
+            services.computeIfAbsent(current.getServiceId(), k -> new LinkedHashMap<>()).put(member.id(), current);
+        }
+
+        if (previous != null) {
+            changed.add(previous.getServiceId());
+        }
+        if (current != null) {
+            changed.add(current.getServiceId());
+        }
+    }
+
+    private void remove(Member member, Set<String> changed) {
+        final AtomixServiceInstance previous = unindex(member.id());
+
+        rejected.remove(member.id());
+
+        if (previous != null) {
+            changed.add(previous.getServiceId());
+        }
+    }
+
+    private void publish(Set<String> changed) {
+        if (!changed.isEmpty()) {
+            changed.forEach(this::publish);
+            refreshServiceIds();
+        }
+    }
+
+    private AtomixServiceInstance unindex(MemberId memberId) {
+        final AtomixServiceInstance previous = members.remove(memberId);
+
+        states.remove(memberId);
+
+        if (previous != null) {
+            final Map<MemberId, AtomixServiceInstance> service = services.get(previous.getServiceId());
+
+            if (service != null) {
+                service.remove(memberId);
+
+                if (service.isEmpty()) {
+                    services.remove(previous.getServiceId());
+                }
+            }
+        }
+
+        return previous;
+    }
+
+    private void publish(String serviceId) {
+        final Map<MemberId, AtomixServiceInstance> service = services.get(serviceId);
+
+        if (service == null || service.isEmpty()) {
+            instances.remove(serviceId);
+        } else {
+            instances.put(serviceId, ImmutableList.copyOf(service.values()));
+        }
+
+        updates.increment();
+
+        for (Listener listener : listeners) {
+            try {
+                listener.onServiceChanged(serviceId);
+            } catch (Exception e) {
+                LOGGER.warn("Error notifying change of service {} to {}", serviceId, listener, e);
+            }
+        }
+    }
+
+    /**
+     * Select the instance for the given member or null if the member is not a service
+     * instance matching the configured filters.
+     *
+     * The filters are evaluated only if the metadata of the member changed: the previous
+     * instance is reused unless its address or metadata changed and the rejected members
+     * are remembered together with the metadata they have been rejected for.
+     */
+    private AtomixServiceInstance select(Member member, AtomixServiceInstance previous) {
+        if (previous != null && previous.isSameAs(member)) {
+            return previous;
+        }
+
+        final Map<String, String> metadata = member.metadata();
+
+        if (Objects.equals(rejected.get(member.id()), metadata)) {
+            return null;
+        }
+
+        if (AtomixDiscoveryUtils.isService(member, properties)) {
+            rejected.remove(member.id());
+
+            return new AtomixServiceInstance(member);
+        }
+
+        rejected.put(member.id(), Collections.unmodifiableMap(new HashMap<>(metadata)));
+
+        return null;
+    }
+
+    private boolean isUnchanged(Member member) {
+        final AtomixServiceInstance previous = members.get(member.id());
+
+        if (previous != null) {
+            return previous.isSameAs(member) && Objects.equals(states.get(member.id()), AtomixUtils.getState(member));
+        }
+
+        return Objects.equals(rejected.get(member.id()), member.metadata());
+    }
+
+    /**
+     * Whether the two indexed versions of a service hold the same instances in the same
+     * states, instances are reused as long as their member is unchanged.
+     */
+    private static boolean isSame(
+            Map<MemberId, AtomixServiceInstance> previous, Map<MemberId, Member.State> previousStates,
+            Map<MemberId, AtomixServiceInstance> current, Map<MemberId, Member.State> currentStates) {
+
+        if (previous == null || current == null || previous.size() != current.size()) {
+            return previous == current;
+        }
+
+        for (Map.Entry<MemberId, AtomixServiceInstance> entry : previous.entrySet()) {
+            if (current.get(entry.getKey()) != entry.getValue()
+                || previousStates.get(entry.getKey()) != currentStates.get(entry.getKey())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void refreshServiceIds() {
+        if (serviceIds.size() != services.size() || !services.keySet().containsAll(serviceIds)) {
+            serviceIds = ImmutableList.copyOf(services.keySet());
+        }
+    }
+
+    /**
+     * Listener notified when the instances of a service have changed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onServiceChanged(String serviceId);
+    }
+}
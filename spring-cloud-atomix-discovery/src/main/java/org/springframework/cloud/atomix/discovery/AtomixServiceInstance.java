@@ -17,69 +17,115 @@
 package org.springframework.cloud.atomix.discovery;
 
 import java.net.URI;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
 import com.google.common.collect.ImmutableMap;
 import io.atomix.cluster.Member;
+import io.atomix.utils.net.Address;
 import org.springframework.cloud.atomix.AtomixConstants;
 import org.springframework.cloud.client.ServiceInstance;
 
+/**
+ * An immutable view of a cluster member registered as a service instance.
+ *
+ * Everything the load balancer needs (host, port, secure flag and URI) is computed once
+ * when the instance is created, instances are cached by the {@link AtomixServiceCatalog}
+ * and only recreated when the address or the metadata of the member change.
+ */
 public class AtomixServiceInstance implements ServiceInstance {
     private final Member member;
+    private final Address address;
+    private final Map<String, String> source;
     private final Map<String, String> meta;
+    private final String serviceId;
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final URI uri;
 
     public AtomixServiceInstance(Member member) {
         this.member = member;
+        this.address = member.address();
+        this.source = ImmutableMap.copyOf(member.metadata());
+
+        final Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put(AtomixConstants.META_SERVICE_HOST, this.address.host());
+        defaults.put(AtomixConstants.META_SERVICE_PORT, Integer.toString(this.address.port()));
+        defaults.put(AtomixConstants.META_SERVICE_SCHEME, "http");
+        defaults.put(AtomixConstants.META_SERVICE_RACK, member.rack());
+        defaults.put(AtomixConstants.META_SERVICE_ZONE, member.zone());
+
+        final ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+        builder.putAll(this.source);
+
+        defaults.forEach(
+            (k, v) -> {
+                if (v != null && !this.source.containsKey(k)) {
+                    builder.put(k, v);
+                }
+            }
+        );
+
+        this.meta = builder.build();
+        this.serviceId = meta.get(AtomixConstants.META_SERVICE_ID);
+        this.host = meta.get(AtomixConstants.META_SERVICE_HOST);
+        this.port = parsePort(meta.get(AtomixConstants.META_SERVICE_PORT), this.address.port());
+
+        final String scheme = meta.get(AtomixConstants.META_SERVICE_SCHEME);
+
+        this.secure = Objects.equals("https", scheme);
+        this.uri = URI.create(scheme + "://" + host + ":" + port);
+    }
 
-        Map<String, String> m = new HashMap<>(member.metadata());
-        m.putIfAbsent(AtomixConstants.META_SERVICE_HOST, this.member.address().host());
-        m.putIfAbsent(AtomixConstants.META_SERVICE_PORT, Integer.toString(this.member.address().port()));
-        m.putIfAbsent(AtomixConstants.META_SERVICE_SCHEME,"http");
-        m.putIfAbsent(AtomixConstants.META_SERVICE_RACK, member.rack());
-        m.putIfAbsent(AtomixConstants.META_SERVICE_ZONE, member.zone());
+    public Member getMember() {
+        return member;
+    }
 
-        this.meta = ImmutableMap.copyOf(m);
+    /**
+     * Checks if the address and the metadata of the given member are the same as the
+     * ones this instance has been created from.
+     */
+    public boolean isSameAs(Member member) {
+        return Objects.equals(this.address, member.address()) && Objects.equals(this.source, member.metadata());
     }
 
     @Override
     public String getServiceId() {
-        return meta.get(AtomixConstants.META_SERVICE_ID);
+        return serviceId;
     }
 
     @Override
     public String getHost() {
-        return meta.get(AtomixConstants.META_SERVICE_HOST);
+        return host;
     }
 
     @Override
     public int getPort() {
-        return Integer.parseInt(meta.get(AtomixConstants.META_SERVICE_PORT));
+        return port;
     }
 
     @Override
     public boolean isSecure() {
-        return Objects.equals(
-            "https",
-            meta.get(AtomixConstants.META_SERVICE_SCHEME)
-        );
+        return secure;
     }
 
     @Override
     public URI getUri() {
-        String scheme = meta.get(AtomixConstants.META_SERVICE_SCHEME);
-        if (scheme == null && isSecure()) {
-            scheme = "https";
-        }
-
-        return URI.create(
-            String.format("%s://%s:%d", scheme, getHost(), getPort())
-        );
+        return uri;
     }
 
     @Override
     public Map<String, String> getMetadata() {
         return this.meta;
     }
+
+    private static int parsePort(String port, int defaultPort) {
+        try {
+            return port != null ? Integer.parseInt(port) : defaultPort;
+        } catch (NumberFormatException e) {
+            return defaultPort;
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.springframework.cloud.atomix.discovery;
 import io.atomix.cluster.ClusterMembershipEvent;
 import org.springframework.cloud.atomix.AtomixClient;
 import org.springframework.cloud.atomix.AtomixMemberWatch;
+import org.springframework.cloud.atomix.AtomixMembershipChange;
 import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
@@ -41,4 +42,19 @@ public class AtomixServiceWatch extends AtomixMemberWatch implements Application
             new HeartbeatEvent(this, event.type())
         );
     }
+
+    @Override
+    protected void onMembershipChanged(AtomixMembershipChange change) {
+        // a single heartbeat for the whole batch
+        publisher.publishEvent(
+            new HeartbeatEvent(this, change)
+        );
+    }
+
+    @Override
+    protected void onMembershipResync() {
+        publisher.publishEvent(
+            new HeartbeatEvent(this, "RESYNC")
+        );
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.discovery.loadbalancer;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * A non blocking supplier of the instances of a service, backed by the
+ * {@link AtomixServiceCatalog}.
+ *
+ * The flux emits the current instances on subscription and then a new list only when the
+ * instances of the service change; the lists are the immutable ones indexed by the
+ * catalog so nothing is built or looked up per request. The flux is shared among the
+ * subscribers and slow subscribers only see the latest list.
+ */
+public class AtomixServiceInstanceListSupplier implements Supplier<Flux<List<ServiceInstance>>> {
+    private final AtomixServiceCatalog catalog;
+    private final String serviceId;
+    private final Flux<List<ServiceInstance>> instances;
+
+    public AtomixServiceInstanceListSupplier(AtomixServiceCatalog catalog, String serviceId) {
+        this.catalog = Objects.requireNonNull(catalog);
+        this.serviceId = Objects.requireNonNull(serviceId);
+        this.instances = Flux.<List<ServiceInstance>>create(this::subscribe, FluxSink.OverflowStrategy.LATEST)
+            .distinctUntilChanged(l -> l, (l1, l2) -> l1 == l2)
+            .replay(1)
+            .refCount();
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return instances;
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void subscribe(FluxSink<List<ServiceInstance>> sink) {
+        final AtomixServiceCatalog.Listener listener = id -> {
+            if (serviceId.equals(id)) {
+                sink.next(catalog.getInstances(serviceId));
+            }
+        };
+
+        // register first so no change can be missed between the lookup and the
+        // registration, duplicates are filtered out downstream
+        catalog.addListener(listener);
+        sink.onDispose(() -> catalog.removeListener(listener));
+        sink.next(catalog.getInstances(serviceId));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.discovery.loadbalancer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+
+/**
+ * Creates and caches an {@link AtomixServiceInstanceListSupplier} per service id, so all
+ * the clients of a service share the same flux.
+ */
+public class AtomixServiceInstanceListSuppliers {
+    private final AtomixServiceCatalog catalog;
+    private final ConcurrentMap<String, AtomixServiceInstanceListSupplier> suppliers;
+
+    public AtomixServiceInstanceListSuppliers(AtomixServiceCatalog catalog) {
+        this.catalog = Objects.requireNonNull(catalog);
+        this.suppliers = new ConcurrentHashMap<>();
+    }
+
+    public AtomixServiceInstanceListSupplier get(String serviceId) {
+        return suppliers.computeIfAbsent(serviceId, id -> new AtomixServiceInstanceListSupplier(catalog, id));
+    }
+}
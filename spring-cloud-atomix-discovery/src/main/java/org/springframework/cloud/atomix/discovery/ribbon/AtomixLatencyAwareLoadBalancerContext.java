@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.RetryHandler;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerContext;
+
+/**
+ * Reports the response times recorded by ribbon to an {@link AtomixLatencyAwareRule}.
+ *
+ * The load balanced {@code RestTemplate} does not run the ribbon commands, so the
+ * {@link com.netflix.loadbalancer.reactive.ExecutionListener} callbacks of the rule are
+ * never invoked: the completed requests are instead reported to this context, which
+ * forwards their response time to the rule.
+ *
+ * Ribbon reports a completion with the stats of the server only, the server is resolved
+ * from the stats of the load balancer and remembered for as long as the stats exist.
+ */
+public class AtomixLatencyAwareLoadBalancerContext extends RibbonLoadBalancerContext {
+    private final AtomixLatencyAwareRule rule;
+    private final Map<ServerStats, Server> servers;
+
+    public AtomixLatencyAwareLoadBalancerContext(
+            ILoadBalancer lb,
+            IClientConfig config,
+            RetryHandler retryHandler,
+            AtomixLatencyAwareRule rule) {
+
+        super(lb, config, retryHandler);
+
+        this.rule = rule;
+        this.servers = Collections.synchronizedMap(new WeakHashMap<>());
+    }
+
+    @Override
+    public void noteRequestCompletion(ServerStats stats, Object response, Throwable e, long responseTime, RetryHandler errorHandler) {
+        super.noteRequestCompletion(stats, response, e, responseTime, errorHandler);
+
+        // like the listener, a failed attempt tells as much about the server as a success
+        final Server server = getServer(stats);
+        if (server != null) {
+            rule.noteResponseTime(server, responseTime, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Server getServer(ServerStats stats) {
+        if (stats == null) {
+            return null;
+        }
+
+        final Server server = servers.get(stats);
+        if (server != null) {
+            return server;
+        }
+
+        final ILoadBalancer lb = getLoadBalancer();
+        if (!(lb instanceof AbstractLoadBalancer)) {
+            return null;
+        }
+
+        for (Map.Entry<Server, ServerStats> entry : ((AbstractLoadBalancer) lb).getLoadBalancerStats().getServerStats().entrySet()) {
+            if (entry.getValue() == stats) {
+                servers.put(stats, entry.getKey());
+                return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.client.config.IClientConfigKey;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.reactive.ExecutionContext;
+import com.netflix.loadbalancer.reactive.ExecutionInfo;
+import com.netflix.loadbalancer.reactive.ExecutionListener;
+
+/**
+ * A power of two choices rule: two reachable servers are picked at random and the one
+ * with the lowest cost is chosen, the cost being the exponentially weighted moving
+ * average (EWMA) of the response time multiplied by the number of in-flight requests
+ * plus one.
+ *
+ * The ribbon server stats only expose the mean response time since the beginning, so
+ * the response times are recorded by the rule itself: register it as an
+ * {@link ExecutionListener} of the load balancer commands, or report them through
+ * {@link #noteResponseTime(Server, long, TimeUnit)}. When installed by the
+ * {@link AtomixRibbonClientAutoConfiguration} the response times recorded by ribbon are
+ * reported through the {@link AtomixLatencyAwareLoadBalancerContext}. Older samples decay with the time
+ * window configured by {@code AtomixLatencyDecayWindow}, in milliseconds (default
+ * 10000). A choice only looks at the two picked servers so it takes constant time
+ * regardless of the number of servers.
+ */
+public class AtomixLatencyAwareRule extends AbstractLoadBalancerRule implements ExecutionListener<Object, Object> {
+    public static final IClientConfigKey<Long> DECAY_WINDOW = new CommonClientConfigKey<Long>("AtomixLatencyDecayWindow") {
+    };
+
+    private static final String START_TIME = AtomixLatencyAwareRule.class.getName() + ".start";
+
+    private final Map<Server, Ewma> ewmas;
+    private volatile long decayWindow;
+
+    public AtomixLatencyAwareRule() {
+        this.ewmas = new ConcurrentHashMap<>();
+        this.decayWindow = TimeUnit.SECONDS.toNanos(10);
+    }
+
+    @Override
+    public void initWithNiwsConfig(IClientConfig config) {
+        final Object value = config.getProperty(DECAY_WINDOW);
+
+        if (value != null) {
+            setDecayWindow(Long.parseLong(value.toString()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void setDecayWindow(long window, TimeUnit unit) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The decay window must be positive");
+        }
+
+        this.decayWindow = unit.toNanos(window);
+    }
+
+    public long getDecayWindow(TimeUnit unit) {
+        return unit.convert(decayWindow, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the response time of a request completed by the given server.
+     */
+    public void noteResponseTime(Server server, long duration, TimeUnit unit) {
+        ewmas.computeIfAbsent(server, s -> new Ewma()).update(unit.toNanos(duration), System.nanoTime(), decayWindow);
+    }
+
+    /**
+     * The response time average of the given server, NaN if no response time has been
+     * recorded for it.
+     */
+    public double getResponseTime(Server server, TimeUnit unit) {
+        final Ewma ewma = ewmas.get(server);
+
+        return ewma != null ? ewma.get() / unit.toNanos(1) : Double.NaN;
+    }
+
+    @Override
+    public Server choose(Object key) {
+        final ILoadBalancer lb = getLoadBalancer();
+
+        if (lb == null) {
+            return null;
+        }
+
+        final List<Server> servers = lb.getReachableServers();
+        final int size = servers.size();
+
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return servers.get(0);
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int i = random.nextInt(size);
+        final int j = (i + 1 + random.nextInt(size - 1)) % size;
+
+        final Server s1 = servers.get(i);
+        final Server s2 = servers.get(j);
+
+        final LoadBalancerStats stats = lb instanceof AbstractLoadBalancer
+            ? ((AbstractLoadBalancer) lb).getLoadBalancerStats()
+            : null;
+
+        if (ewmas.size() > 2 * size) {
+            prune(servers);
+        }
+
+        return cost(s1, stats) <= cost(s2, stats) ? s1 : s2;
+    }
+
+    // ************************
+    // ExecutionListener
+    // ************************
+
+    @Override
+    public void onExecutionStart(ExecutionContext<Object> context) {
+    }
+
+    @Override
+    public void onStartWithServer(ExecutionContext<Object> context, ExecutionInfo info) {
+        context.put(START_TIME, System.nanoTime());
+    }
+
+    @Override
+    public void onExceptionWithServer(ExecutionContext<Object> context, Throwable exception, ExecutionInfo info) {
+        // a failed attempt, e.g. a timeout, tells as much about the server as a success
+        record(context, info);
+    }
+
+    @Override
+    public void onExecutionSuccess(ExecutionContext<Object> context, Object response, ExecutionInfo info) {
+        record(context, info);
+    }
+
+    @Override
+    public void onExecutionFailed(ExecutionContext<Object> context, Throwable finalException, ExecutionInfo info) {
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void record(ExecutionContext<Object> context, ExecutionInfo info) {
+        final Object start = context.get(START_TIME);
+
+        if (start instanceof Long && info != null && info.getServer() != null) {
+            noteResponseTime(info.getServer(), System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double cost(Server server, LoadBalancerStats stats) {
+        final Ewma ewma = ewmas.get(server);
+        final int active = stats != null ? stats.getSingleServerStat(server).getActiveRequestsCount() : 0;
+
+        // a server without samples is weighted by its in-flight requests only
+        return ((ewma != null ? ewma.get() : 0) + 1) * (active + 1);
+    }
+
+    private void prune(List<Server> servers) {
+        ewmas.keySet().retainAll(new HashSet<>(servers));
+    }
+
+    /**
+     * The response time EWMA of a server, in nanoseconds.
+     */
+    static final class Ewma {
+        private boolean sampled;
+        private long timestamp;
+        private double value;
+
+        synchronized void update(double sample, long now, long window) {
+            // any nano time, zero included, is a valid timestamp
+            if (!this.sampled) {
+                this.value = sample;
+                this.sampled = true;
+            } else {
+                // the older the previous sample, the more weight the new one gets
+                final double alpha = 1 - Math.exp(-(double) Math.max(0, now - this.timestamp) / window);
+                this.value += alpha * (sample - this.value);
+            }
+
+            this.timestamp = now;
+        }
+
+        synchronized double get() {
+            return value;
+        }
+    }
+}
@@ -18,20 +18,27 @@ package org.springframework.cloud.atomix.discovery.ribbon;
 
 import javax.annotation.PostConstruct;
 
+import com.netflix.client.RetryHandler;
 import com.netflix.client.config.IClientConfig;
 import com.netflix.config.ConfigurationManager;
 import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.config.DynamicStringProperty;
+import com.netflix.loadbalancer.ILoadBalancer;
 import com.netflix.loadbalancer.IPing;
+import com.netflix.loadbalancer.IRule;
 import com.netflix.loadbalancer.Server;
 import com.netflix.loadbalancer.ServerList;
 import com.netflix.loadbalancer.ServerListFilter;
+import com.netflix.loadbalancer.ServerListUpdater;
+import io.atomix.cluster.Member;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.atomix.AtomixClient;
-import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
 import org.springframework.cloud.netflix.ribbon.RibbonAutoConfiguration;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -59,15 +66,23 @@ public class AtomixRibbonClientAutoConfiguration {
 	@ConditionalOnMissingBean
 	public ServerList<?> atomixServerList(
             IClientConfig config,
-            AtomixClient client,
-            AtomixDiscoveryConfiguration properties) {
+            AtomixServiceCatalog catalog) {
 
-		AtomixServerList serverList = new AtomixServerList(client, properties);
+		AtomixServerList serverList = new AtomixServerList(catalog);
         serverList.initWithNiwsConfig(config);
         
 		return serverList;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ServerListUpdater atomixServerListUpdater(
+            IClientConfig config,
+            AtomixServiceCatalog catalog) {
+
+        return new AtomixServerListUpdater(catalog, config.getClientName());
+    }
+
     @Bean
     public ServerListFilter<Server> atomixServerListFilter() {
         return new AtomixActiveServerListFilter();
@@ -79,6 +94,60 @@ public class AtomixRibbonClientAutoConfiguration {
 		return new AtomixPing();
 	}
 
+    /**
+     * Installs the {@link AtomixZoneAffinityRule} when {@code ribbon.atomix.rule} is set to
+     * {@code zone-affinity}, with the zone and rack of the local member.
+     */
+    @Configuration
+    @ConditionalOnProperty(value = "ribbon.atomix.rule", havingValue = "zone-affinity")
+    protected static class ZoneAffinityRuleConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public IRule atomixRibbonRule(
+                IClientConfig config,
+                AtomixClient client) {
+
+            final Member local = client.getLocalMember();
+            final AtomixZoneAffinityRule rule = new AtomixZoneAffinityRule(local.zone(), local.rack());
+            rule.initWithNiwsConfig(config);
+
+            return rule;
+        }
+    }
+
+    /**
+     * Installs the {@link AtomixLatencyAwareRule} when {@code ribbon.atomix.rule} is set to
+     * {@code latency-aware}, together with the load balancer context that reports the
+     * recorded response times to the rule.
+     */
+    @Configuration
+    @ConditionalOnProperty(value = "ribbon.atomix.rule", havingValue = "latency-aware")
+    protected static class LatencyAwareRuleConfiguration {
+        @Bean
+        @ConditionalOnMissingBean
+        public IRule atomixRibbonRule(IClientConfig config) {
+            final AtomixLatencyAwareRule rule = new AtomixLatencyAwareRule();
+            rule.initWithNiwsConfig(config);
+
+            return rule;
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RibbonLoadBalancerContext ribbonLoadBalancerContext(
+                ILoadBalancer loadBalancer,
+                IClientConfig config,
+                RetryHandler retryHandler,
+                IRule rule) {
+
+            if (rule instanceof AtomixLatencyAwareRule) {
+                return new AtomixLatencyAwareLoadBalancerContext(loadBalancer, config, retryHandler, (AtomixLatencyAwareRule) rule);
+            }
+
+            return new RibbonLoadBalancerContext(loadBalancer, config, retryHandler);
+        }
+    }
+
 	@PostConstruct
 	public void preprocess() {
 		// FIXME: what should this be?
@@ -17,16 +17,35 @@
 package org.springframework.cloud.atomix.discovery.ribbon;
 
 import com.netflix.loadbalancer.Server;
+import io.atomix.cluster.Member;
+import org.springframework.cloud.atomix.AtomixUtils;
 
 /**
  * @author Luca Burgazzoli
  */
 public class AtomixServer extends Server {
     private final MetaInfo metaInfo;
+    private final Member member;
+    private final String rack;
+
+    public AtomixServer(final String appName, final Member member) {
+        this(appName, member.id().id(), member.address().host(), member.address().port(), member);
+    }
 
     public AtomixServer(final String appName, final String instanceId, String host, int port) {
+        this(appName, instanceId, host, port, null);
+    }
+
+    private AtomixServer(final String appName, final String instanceId, String host, int port, Member member) {
         super(host, port);
 
+        this.member = member;
+        this.rack = member != null ? member.rack() : null;
+
+        if (member != null && member.zone() != null) {
+            setZone(member.zone());
+        }
+
         this.metaInfo = new MetaInfo() {
             @Override
             public String getAppName() {
@@ -54,4 +73,22 @@ public class AtomixServer extends Server {
     public MetaInfo getMetaInfo() {
         return metaInfo;
     }
+
+    /**
+     * The rack of the member or null if unknown.
+     */
+    public String getRack() {
+        return rack;
+    }
+
+    @Override
+    public boolean isAlive() {
+        if (member != null) {
+            final Member.State state = AtomixUtils.getState(member);
+
+            return state == null || state == Member.State.ACTIVE;
+        }
+
+        return super.isAlive();
+    }
 }
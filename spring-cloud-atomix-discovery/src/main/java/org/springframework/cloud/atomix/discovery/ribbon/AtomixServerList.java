@@ -16,29 +16,33 @@
 
 package org.springframework.cloud.atomix.discovery.ribbon;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import com.netflix.client.config.IClientConfig;
 import com.netflix.loadbalancer.AbstractServerList;
-import io.atomix.cluster.Member;
-import org.springframework.cloud.atomix.AtomixClient;
-import org.springframework.cloud.atomix.AtomixConstants;
-import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
-import org.springframework.cloud.atomix.discovery.AtomixDiscoveryUtils;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.atomix.discovery.AtomixServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
 
 /**
+ * A server list backed by the {@link AtomixServiceCatalog}, the {@link AtomixServer}s are
+ * cached per service instance and only recreated when the catalog replaces the instance.
+ *
  * @author Luca Burgazzoli
  */
 public class AtomixServerList extends AbstractServerList<AtomixServer> {
-    private final AtomixClient client;
-    private final AtomixDiscoveryConfiguration properties;
+    private final AtomixServiceCatalog catalog;
+    private volatile Map<AtomixServiceInstance, AtomixServer> servers;
     private String serviceId;
 
-    public AtomixServerList(AtomixClient client, AtomixDiscoveryConfiguration properties) {
-        this.client = Objects.requireNonNull(client);
-        this.properties = Objects.requireNonNull(properties);
+    public AtomixServerList(AtomixServiceCatalog catalog) {
+        this.catalog = Objects.requireNonNull(catalog);
+        this.servers = Collections.emptyMap();
     }
 
     @Override
@@ -56,30 +60,28 @@ public class AtomixServerList extends AbstractServerList<AtomixServer> {
         return getServers();
     }
 
-    private List<AtomixServer> getServers() {
-        return AtomixDiscoveryUtils.getServices(client, properties)
-            .filter(member -> {
-                if (serviceId == null) {
-                    return true;
-                }
-                
-                return Objects.equals(
-                    member.metadata().get(AtomixConstants.META_SERVICE_ID), 
-                    serviceId
-                );
-            })
-            .map(member -> {
-                return new AtomixServer(
-                    serviceId, 
-                    member.id().id(), 
-                    member.address().host(), 
-                    member.address().port()) {
-                    @Override
-                    public boolean isAlive() {
-                        return member.getState() == Member.State.ACTIVE;
-                    }
-                };
-            })
-            .collect(Collectors.toList());
+    private synchronized List<AtomixServer> getServers() {
+        final Map<AtomixServiceInstance, AtomixServer> cache = new LinkedHashMap<>();
+
+        if (serviceId == null) {
+            for (String id : catalog.getServices()) {
+                addServers(id, cache);
+            }
+        } else {
+            addServers(serviceId, cache);
+        }
+
+        this.servers = cache;
+
+        return new ArrayList<>(cache.values());
+    }
+
+    private void addServers(String id, Map<AtomixServiceInstance, AtomixServer> cache) {
+        for (ServiceInstance instance : catalog.getInstances(id)) {
+            final AtomixServiceInstance atomixInstance = (AtomixServiceInstance) instance;
+            final AtomixServer server = servers.get(atomixInstance);
+
+            cache.put(atomixInstance, server != null ? server : new AtomixServer(id, atomixInstance.getMember()));
+        }
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.netflix.loadbalancer.ServerListUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+
+/**
+ * A {@link ServerListUpdater} that updates the load balancer only when the membership of
+ * the service changes, as notified by the {@link AtomixServiceCatalog}, instead of polling
+ * the server list at a fixed interval.
+ */
+public class AtomixServerListUpdater implements ServerListUpdater, AtomixServiceCatalog.Listener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomixServerListUpdater.class);
+
+    private final AtomixServiceCatalog catalog;
+    private final String serviceId;
+    private final AtomicReference<UpdateAction> action;
+    private volatile long lastUpdated;
+
+    public AtomixServerListUpdater(AtomixServiceCatalog catalog, String serviceId) {
+        this.catalog = Objects.requireNonNull(catalog);
+        this.serviceId = serviceId;
+        this.action = new AtomicReference<>();
+        this.lastUpdated = System.currentTimeMillis();
+    }
+
+    @Override
+    public void start(UpdateAction updateAction) {
+        if (this.action.compareAndSet(null, updateAction)) {
+            this.catalog.addListener(this);
+
+            // catch up with changes that may have happened before the listener
+            // has been registered
+            update();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (this.action.getAndSet(null) != null) {
+            this.catalog.removeListener(this);
+        }
+    }
+
+    @Override
+    public String getLastUpdate() {
+        return new Date(lastUpdated).toString();
+    }
+
+    @Override
+    public long getDurationSinceLastUpdateMs() {
+        return System.currentTimeMillis() - lastUpdated;
+    }
+
+    @Override
+    public int getNumberMissedCycles() {
+        return 0;
+    }
+
+    @Override
+    public int getCoreThreads() {
+        return 0;
+    }
+
+    @Override
+    public void onServiceChanged(String serviceId) {
+        if (this.serviceId == null || Objects.equals(this.serviceId, serviceId)) {
+            update();
+        }
+    }
+
+    private void update() {
+        final UpdateAction updateAction = this.action.get();
+
+        if (updateAction != null) {
+            try {
+                updateAction.doUpdate();
+
+                lastUpdated = System.currentTimeMillis();
+            } catch (Exception e) {
+                LOGGER.warn("Failed to update the server list of {}", serviceId, e);
+            }
+        }
+    }
+}
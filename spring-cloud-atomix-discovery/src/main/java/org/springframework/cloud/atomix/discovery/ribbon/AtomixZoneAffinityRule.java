@@ -0,0 +1,310 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.client.config.IClientConfigKey;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+
+/**
+ * A rule that prefers the servers in the same rack as the local member, then the ones
+ * in the same zone and finally any server.
+ *
+ * A tier (rack or zone) is used only if it is healthy enough, otherwise the traffic
+ * spills over to the next one:
+ *
+ * <ul>
+ *   <li>{@link #MIN_AVAILABILITY}: the min fraction of the servers of the tier that
+ *   must be reachable (default 0.5)</li>
+ *   <li>{@link #MAX_ACTIVE_REQUESTS_PER_SERVER}: the max average number of active
+ *   requests per reachable server of the tier (default 50)</li>
+ * </ul>
+ *
+ * Servers within the selected tier are chosen round robin.
+ *
+ * The servers of each tier are computed once per server list update of a
+ * {@link BaseLoadBalancer}, other load balancers do not notify such updates so the
+ * tiers are computed on every choice. Whether a server of a tier is reachable is
+ * checked on every choice: an {@link AtomixServer} reads the state of its member, which
+ * changes without any notification of the load balancer.
+ */
+public class AtomixZoneAffinityRule extends AbstractLoadBalancerRule {
+    public static final IClientConfigKey<Double> MIN_AVAILABILITY = new CommonClientConfigKey<Double>("AtomixMinAvailability") {
+    };
+    public static final IClientConfigKey<Double> MAX_ACTIVE_REQUESTS_PER_SERVER = new CommonClientConfigKey<Double>("AtomixMaxActiveRequestsPerServer") {
+    };
+
+    private final AtomicInteger next;
+    private final AtomicLong version;
+    private volatile Tiers tiers;
+    private volatile boolean notified;
+    private volatile String zone;
+    private volatile String rack;
+    private double minAvailability;
+    private double maxActiveRequestsPerServer;
+
+    public AtomixZoneAffinityRule() {
+        this(null, null);
+    }
+
+    public AtomixZoneAffinityRule(String zone, String rack) {
+        this.next = new AtomicInteger();
+        this.version = new AtomicLong();
+        this.zone = zone;
+        this.rack = rack;
+        this.minAvailability = 0.5;
+        this.maxActiveRequestsPerServer = 50;
+    }
+
+    @Override
+    public void initWithNiwsConfig(IClientConfig config) {
+        this.minAvailability = getDouble(config, MIN_AVAILABILITY, this.minAvailability);
+        this.maxActiveRequestsPerServer = getDouble(config, MAX_ACTIVE_REQUESTS_PER_SERVER, this.maxActiveRequestsPerServer);
+    }
+
+    @Override
+    public void setLoadBalancer(ILoadBalancer lb) {
+        super.setLoadBalancer(lb);
+
+        this.notified = false;
+
+        if (lb instanceof BaseLoadBalancer) {
+            ((BaseLoadBalancer) lb).addServerListChangeListener((oldList, newList) -> invalidate());
+
+            this.notified = true;
+        }
+
+        invalidate();
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+        invalidate();
+    }
+
+    public String getRack() {
+        return rack;
+    }
+
+    public void setRack(String rack) {
+        this.rack = rack;
+        invalidate();
+    }
+
+    public void setMinAvailability(double minAvailability) {
+        this.minAvailability = minAvailability;
+    }
+
+    public void setMaxActiveRequestsPerServer(double maxActiveRequestsPerServer) {
+        this.maxActiveRequestsPerServer = maxActiveRequestsPerServer;
+    }
+
+    @Override
+    public Server choose(Object key) {
+        final ILoadBalancer lb = getLoadBalancer();
+
+        if (lb == null) {
+            return null;
+        }
+
+        final Tiers tiers = tiers(lb);
+        final LoadBalancerStats stats = lb instanceof AbstractLoadBalancer
+            ? ((AbstractLoadBalancer) lb).getLoadBalancerStats()
+            : null;
+
+        int reachable = reachable(tiers.rack, stats);
+        if (reachable > 0) {
+            return roundRobin(tiers.rack.servers, reachable);
+        }
+
+        reachable = reachable(tiers.zone, stats);
+        if (reachable > 0) {
+            return roundRobin(tiers.zone.servers, reachable);
+        }
+
+        final List<Server> servers = lb.getReachableServers();
+
+        reachable = 0;
+        for (int i = 0; i < servers.size(); i++) {
+            if (servers.get(i).isAlive()) {
+                reachable++;
+            }
+        }
+
+        return reachable > 0 ? roundRobin(servers, reachable) : null;
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private Tiers tiers(ILoadBalancer lb) {
+        final Tiers current = this.tiers;
+
+        // the version is read before the server lists so a concurrent update is never
+        // hidden by the tiers computed from the previous lists
+        final long expected = version.get();
+
+        if (notified && current != null && current.version == expected) {
+            return current;
+        }
+
+        final String zone = this.zone;
+        final String rack = this.rack;
+        final List<Server> all = lb.getAllServers();
+
+        final Tiers computed = new Tiers(
+            expected,
+            rack != null ? Tier.of(all, s -> s instanceof AtomixServer && isSameRack((AtomixServer) s, zone, rack)) : null,
+            zone != null ? Tier.of(all, s -> Objects.equals(zone, s.getZone())) : null);
+
+        this.tiers = computed;
+
+        return computed;
+    }
+
+    private static boolean isSameRack(AtomixServer server, String zone, String rack) {
+        return Objects.equals(rack, server.getRack()) && Objects.equals(zone, server.getZone());
+    }
+
+    /**
+     * The number of reachable servers of the tier if it can take the traffic, 0 if it
+     * should be spilled over.
+     */
+    private int reachable(Tier tier, LoadBalancerStats stats) {
+        if (tier == null || tier.servers.isEmpty()) {
+            return 0;
+        }
+
+        int reachable = 0;
+        long activeRequests = 0;
+
+        for (int i = 0; i < tier.servers.size(); i++) {
+            final Server server = tier.servers.get(i);
+
+            if (server.isAlive()) {
+                reachable++;
+
+                if (stats != null) {
+                    activeRequests += stats.getSingleServerStat(server).getActiveRequestsCount();
+                }
+            }
+        }
+
+        if (reachable == 0 || (double) reachable / tier.servers.size() < minAvailability) {
+            return 0;
+        }
+        if ((double) activeRequests / reachable > maxActiveRequestsPerServer) {
+            return 0;
+        }
+
+        return reachable;
+    }
+
+    /**
+     * Choose round robin among the given number of reachable servers of the list.
+     */
+    private Server roundRobin(List<Server> servers, int reachable) {
+        int index = Math.floorMod(next.getAndIncrement(), reachable);
+        Server last = servers.get(0);
+
+        for (int i = 0; i < servers.size(); i++) {
+            final Server server = servers.get(i);
+
+            if (server.isAlive()) {
+                if (index-- == 0) {
+                    return server;
+                }
+
+                last = server;
+            }
+        }
+
+        // some servers have become unreachable since they have been counted
+        return last;
+    }
+
+    private static double getDouble(IClientConfig config, IClientConfigKey<Double> key, double defaultValue) {
+        final Object value = config.getProperty(key);
+
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key.key() + ": " + value, e);
+            }
+        }
+
+        return defaultValue;
+    }
+
+    private static final class Tiers {
+        final long version;
+        final Tier rack;
+        final Tier zone;
+
+        Tiers(long version, Tier rack, Tier zone) {
+            this.version = version;
+            this.rack = rack;
+            this.zone = zone;
+        }
+    }
+
+    /**
+     * All the servers of a tier, reachable or not.
+     */
+    private static final class Tier {
+        final List<Server> servers;
+
+        Tier(List<Server> servers) {
+            this.servers = servers;
+        }
+
+        static Tier of(List<Server> all, Predicate<Server> predicate) {
+            final List<Server> servers = new ArrayList<>();
+            for (int i = 0; i < all.size(); i++) {
+                if (predicate.test(all.get(i))) {
+                    servers.add(all.get(i));
+                }
+            }
+
+            return new Tier(Collections.unmodifiableList(servers));
+        }
+    }
+}
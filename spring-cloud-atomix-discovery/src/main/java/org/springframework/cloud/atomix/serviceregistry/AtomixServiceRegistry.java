@@ -16,42 +16,217 @@
 
 package org.springframework.cloud.atomix.serviceregistry;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConstants;
 import org.springframework.cloud.client.serviceregistry.Registration;
 import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
- * @author Luca Burgazzoli
+ * A {@link ServiceRegistry} on top of the metadata of the local member: registering sets
+ * the service id, address, status and metadata of the registration as member metadata so
+ * the other members discover the local one as a service instance.
+ *
+ * The updates made within the configured propagation window are merged and applied as a
+ * single metadata update, so the cluster sees one change per window rather than one per
+ * call.
+ *
+ * The metadata the local member has been configured with is left untouched by the
+ * registration metadata and restored on deregistration.
+ *
+ * The registry is flushed and closed before the client drains the local member, the
+ * updates made afterwards are ignored so they can't overwrite the draining status.
  */
 public class AtomixServiceRegistry implements ServiceRegistry<Registration> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomixServiceRegistry.class);
+
     private final AtomixClient client;
     private final AtomixServiceRegistryConfiguration configuration;
+    private final Map<String, String> configured;
+    private final Map<String, String> pending;
+    private final Set<String> registered;
+    private final LongAdder propagations;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> flush;
+    private boolean closed;
 
     public AtomixServiceRegistry(AtomixClient client, AtomixServiceRegistryConfiguration configuration) {
-        this.client = client;
-        this.configuration = configuration;
+        this.client = Objects.requireNonNull(client);
+        this.configuration = Objects.requireNonNull(configuration);
+        this.configured = new HashMap<>(client.getLocalMember().metadata());
+        this.pending = new LinkedHashMap<>();
+        this.registered = new LinkedHashSet<>();
+        this.propagations = new LongAdder();
+
+        this.client.addDrainCallback(this::close);
     }
 
     @Override
     public void register(Registration registration) {
-        //AtomixConstants.META_SERVICE_ID;
+        final Map<String, String> metadata = new LinkedHashMap<>();
+
+        if (registration.getMetadata() != null) {
+            registration.getMetadata().forEach((key, value) -> {
+                if (!configured.containsKey(key)) {
+                    metadata.put(key, value);
+                }
+            });
+        }
+
+        metadata.put(AtomixConstants.META_SERVICE_ID, registration.getServiceId());
+        metadata.put(AtomixConstants.META_SERVICE_HOST, registration.getHost());
+        metadata.put(AtomixConstants.META_SERVICE_PORT, Integer.toString(registration.getPort()));
+        metadata.put(AtomixConstants.META_SERVICE_SCHEME, registration.isSecure() ? "https" : "http");
+        metadata.put(AtomixConstants.META_SERVICE_STATUS, AtomixConstants.STATUS_UP);
+
+        synchronized (this) {
+            // drop the keys of a previous registration that are not set anymore
+            for (String key : registered) {
+                metadata.putIfAbsent(key, configured.get(key));
+            }
+
+            registered.clear();
+            registered.addAll(metadata.keySet());
+            registered.removeIf(key -> Objects.equals(metadata.get(key), configured.get(key)));
+
+            update(metadata);
+        }
+
+        LOGGER.info("Registering service {} ({}:{})", registration.getServiceId(), registration.getHost(), registration.getPort());
     }
 
     @Override
     public void deregister(Registration registration) {
+        final Map<String, String> metadata = new HashMap<>();
+
+        synchronized (this) {
+            registered.forEach(key -> metadata.put(key, configured.get(key)));
+            registered.clear();
+
+            update(metadata);
+        }
+
+        LOGGER.info("Deregistering service {}", registration.getServiceId());
     }
 
+    /**
+     * Set the status of the local instance, such as {@link AtomixConstants#STATUS_UP},
+     * {@link AtomixConstants#STATUS_OUT_OF_SERVICE} or {@link AtomixConstants#STATUS_DRAINING};
+     * discovery only hands out the instances that are up.
+     */
     @Override
     public void setStatus(Registration registration, String status) {
+        Objects.requireNonNull(status, "status");
+
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put(AtomixConstants.META_SERVICE_STATUS, status);
+
+        synchronized (this) {
+            registered.add(AtomixConstants.META_SERVICE_STATUS);
 
+            update(metadata);
+        }
     }
 
+    /**
+     * The status of the local instance, including a change not yet propagated.
+     */
+    @SuppressWarnings("unchecked")
     @Override
-    public <T> T getStatus(Registration registration) {
-        return null;
+    public synchronized <T> T getStatus(Registration registration) {
+        if (pending.containsKey(AtomixConstants.META_SERVICE_STATUS)) {
+            return (T) pending.get(AtomixConstants.META_SERVICE_STATUS);
+        }
+
+        return (T) client.getLocalMember().metadata().get(AtomixConstants.META_SERVICE_STATUS);
+    }
+
+    /**
+     * The number of metadata updates applied to the local member.
+     */
+    public long getPropagations() {
+        return propagations.sum();
+    }
+
+    /**
+     * Apply the pending updates now.
+     */
+    public synchronized void flush() {
+        if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final Map<String, String> updates = new LinkedHashMap<>(pending);
+        pending.clear();
+
+        // applied under the lock, a local map update, so a flush can't race with close
+        try {
+            if (client.updateLocalMetadata(updates)) {
+                propagations.increment();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to update the local member metadata {}", updates, e);
+        }
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
+        flush();
+
+        closed = true;
+
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    // ************************
+    // Helpers
+    // ************************
+
+    private synchronized void update(Map<String, String> updates) {
+        if (closed) {
+            LOGGER.debug("Registry closed, ignoring the metadata update {}", updates);
+            return;
+        }
+
+        pending.putAll(updates);
+
+        final Duration window = configuration.getPropagationWindow();
+
+        if (window == null || window.isZero() || window.isNegative()) {
+            flush();
+            return;
+        }
+
+        if (flush == null) {
+            if (executor == null) {
+                executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("atomix-service-registry-"));
+            }
+
+            // the window is measured from the first pending update so a stream of updates
+            // is still propagated at least once per window
+            flush = executor.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
     }
 }
@@ -18,6 +18,7 @@ package org.springframework.cloud.atomix.serviceregistry;
 
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.atomix.AtomixClient;
 import org.springframework.cloud.atomix.ConditionalOnAtomixEnabled;
 import org.springframework.cloud.client.serviceregistry.ServiceRegistryAutoConfiguration;
@@ -31,10 +32,11 @@ import org.springframework.context.annotation.Configuration;
 @ConditionalOnAtomixEnabled
 @ConditionalOnAtomixServiceRegistryEnabled
 @AutoConfigureBefore(ServiceRegistryAutoConfiguration.class)
+@EnableConfigurationProperties(AtomixServiceRegistryConfiguration.class)
 public class AtomixServiceRegistryAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
-    public AtomixServiceRegistry consulServiceRegistry(
+    public AtomixServiceRegistry atomixServiceRegistry(
             AtomixClient client,
             AtomixServiceRegistryConfiguration configuration) {
         return new AtomixServiceRegistry(client, configuration);
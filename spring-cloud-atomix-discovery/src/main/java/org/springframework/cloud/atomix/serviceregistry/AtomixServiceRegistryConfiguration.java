@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.atomix.serviceregistry;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -23,13 +25,19 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *
  * @author Luca Burgazzoli
  */
-@ConfigurationProperties("spring.cloud.atomix.discovery")
+@ConfigurationProperties("spring.cloud.atomix.service-registry")
 public class AtomixServiceRegistryConfiguration {
     /**
      * Is service discovery enabled
      * */
     private boolean enabled = true;
 
+    /**
+     * The registration and status changes made within this window are propagated to the
+     * cluster as a single update; zero propagates each change immediately.
+     */
+    private Duration propagationWindow = Duration.ofMillis(100);
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -37,4 +45,12 @@ public class AtomixServiceRegistryConfiguration {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public Duration getPropagationWindow() {
+        return propagationWindow;
+    }
+
+    public void setPropagationWindow(Duration propagationWindow) {
+        this.propagationWindow = propagationWindow;
+    }
 }
@@ -17,6 +17,7 @@
 package org.springframework.cloud.atomix.discovery;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.ImmutableMap;
 import org.junit.Rule;
@@ -124,6 +125,40 @@ public class AtomixDiscoveryClientTest {
             );
     }
 
+    @Test
+    public void checkDiscoveryIsUpdatedOnMembershipChange() {
+        new ApplicationContextRunner()
+            .withUserConfiguration(TestConfig.class)
+            .withPropertyValues(
+                "banner.mode=OFF",
+                "spring.cloud.atomix.local-member.address=" + "localhost:" + SocketUtils.findAvailableTcpPort(),
+                "spring.cloud.atomix.members[0].address=" + "localhost:" + service.atomix().getLocalMember().address().port(),
+                "spring.cloud.atomix.members[0].id=" + service.atomix().getLocalMember().id().id(),
+                "spring.cloud.atomix.members[0].type=" + service.atomix().getLocalMember().type().name(),
+                "spring.cloud.atomix.config.enabled=false",
+                "spring.cloud.atomix.discovery.enabled=true",
+                "ribbon.atomix.enabled=false",
+                "spring.application.name=" + TEST_CONTEXT
+            )
+            .run(
+                context -> {
+                    AtomixDiscoveryClient client = context.getBean(AtomixDiscoveryClient.class);
+
+                    service.client("s3i1", ImmutableMap.of(
+                        AtomixConstants.META_SERVICE_ID, "my-service-3"
+                    ));
+
+                    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+                    while (client.getInstances("my-service-3").isEmpty() && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(100);
+                    }
+
+                    assertThat(client.getInstances("my-service-3")).hasSize(1);
+                    assertThat(client.getServices()).contains("my-service-1", "my-service-2", "my-service-3");
+                }
+            );
+    }
+
     // *****************
     // test Config
     // *****************
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AtomixMetadataSelectorTest {
+    @Test
+    public void testSelector() {
+        AtomixMetadataSelector selector = AtomixMetadataSelector.parse("zone in (eu-1, eu-2), env!=dev, version>=1.2, version<2, !canary, tier");
+
+        assertThat(selector.test(metadata("zone", "eu-1", "version", "1.10.1", "tier", "web"))).isTrue();
+        assertThat(selector.test(metadata("zone", "eu-2", "version", "1.2", "tier", "web", "env", "prod"))).isTrue();
+        assertThat(selector.test(metadata("zone", "us-1", "version", "1.2", "tier", "web"))).isFalse();
+        assertThat(selector.test(metadata("zone", "eu-1", "version", "1.1", "tier", "web"))).isFalse();
+        assertThat(selector.test(metadata("zone", "eu-1", "version", "2.0", "tier", "web"))).isFalse();
+        assertThat(selector.test(metadata("zone", "eu-1", "version", "1.2", "tier", "web", "env", "dev"))).isFalse();
+        assertThat(selector.test(metadata("zone", "eu-1", "version", "1.2", "tier", "web", "canary", "true"))).isFalse();
+        assertThat(selector.test(metadata("zone", "eu-1", "version", "1.2"))).isFalse();
+    }
+
+    @Test
+    public void testEmptySelector() {
+        assertThat(AtomixMetadataSelector.parse(null)).isSameAs(AtomixMetadataSelector.ALL);
+        assertThat(AtomixMetadataSelector.parse(" ").test(metadata())).isTrue();
+    }
+
+    @Test
+    public void testInvalidSelector() {
+        assertThatThrownBy(() -> AtomixMetadataSelector.parse("zone in (eu-1"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AtomixMetadataSelector.parse("zone=eu-1,"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<String, String> metadata(String... entries) {
+        final Map<String, String> answer = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            answer.put(entries[i], entries[i + 1]);
+        }
+
+        return answer;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixReactiveDiscoveryClientTest {
+    @Rule
+    public final AtomixService service = new AtomixService(c -> {
+        c.client("s1i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+        c.client("s2i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-2"));
+    });
+
+    private AtomixServiceCatalog catalog;
+    private AtomixReactiveDiscoveryClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        catalog = new AtomixServiceCatalog(service.atomix(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        client = new AtomixReactiveDiscoveryClient(catalog);
+
+        await(() -> catalog.getServices().size() == 2);
+    }
+
+    @After
+    public void tearDown() {
+        catalog.stop();
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void servesTheIndexedInstances() {
+        assertThat(client.getServices().collectList().block()).containsOnly("my-service-1", "my-service-2");
+        assertThat(instances(client.getInstances("my-service-1"))).hasSize(1);
+        assertThat(instances(client.getInstances("unknown"))).isEmpty();
+        assertThat(instances(client.getInstances(null))).isEmpty();
+    }
+
+    @Test
+    public void lookupHappensOnSubscription() throws Exception {
+        final Flux<ServiceInstance> instances = client.getInstances("my-service-1");
+
+        service.client("s1i2", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+        await(() -> catalog.getInstances("my-service-1").size() == 2);
+
+        // the flux has been created before the new instance joined
+        assertThat(instances(instances)).hasSize(2);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static List<ServiceInstance> instances(Flux<ServiceInstance> instances) {
+        return instances.collectList().block();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -78,6 +78,7 @@ public class AtomixService extends ExternalResource {
             ).build();
 
         client.start();
+        clients.add(client);
 
         return client;
     }
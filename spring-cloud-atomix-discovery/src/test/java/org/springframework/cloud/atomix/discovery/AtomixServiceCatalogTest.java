@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.discovery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import com.netflix.client.config.DefaultClientConfigImpl;
+import io.atomix.cluster.ClusterMembershipEvent;
+import io.atomix.cluster.Member;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.cloud.atomix.discovery.ribbon.AtomixServer;
+import org.springframework.cloud.atomix.discovery.ribbon.AtomixServerList;
+import org.springframework.cloud.client.ServiceInstance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AtomixServiceCatalogTest {
+    @Rule
+    public final AtomixService service = new AtomixService(c -> {
+        c.client("s1i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+        c.client("s2i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-2"));
+    });
+
+    private AtomixServiceCatalog catalog;
+    private List<String> changes;
+
+    @Before
+    public void setUp() throws Exception {
+        catalog = new AtomixServiceCatalog(service.atomix(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        // wait for the instances to be indexed
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (catalog.getInstanceCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        changes = new CopyOnWriteArrayList<>();
+        catalog.addListener(changes::add);
+    }
+
+    @After
+    public void tearDown() {
+        catalog.stop();
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void resyncRepublishesOnlyChangedServices() {
+        final List<ServiceInstance> instances = catalog.getInstances("my-service-1");
+        final long updates = catalog.getUpdates();
+
+        catalog.rebuild();
+
+        assertThat(changes).isEmpty();
+        assertThat(catalog.getUpdates()).isEqualTo(updates);
+        assertThat(catalog.getInstances("my-service-1")).isSameAs(instances);
+        assertThat(catalog.getServices()).containsOnly("my-service-1", "my-service-2");
+    }
+
+    @Test
+    public void invalidMemberLeavesTheIndexUntouched() {
+        final ServiceInstance instance = catalog.getInstances("my-service-1").get(0);
+        final Member member = ((AtomixServiceInstance) instance).getMember();
+
+        final Map<String, String> metadata = new HashMap<>(member.metadata());
+        metadata.put(AtomixConstants.META_SERVICE_HOST, "not a host");
+
+        final Member invalid = copy(member, metadata);
+
+        assertThatThrownBy(() -> catalog.onMembershipChanged(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_UPDATED, invalid)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(changes).isEmpty();
+        assertThat(catalog.getInstanceCount()).isEqualTo(2);
+        assertThat(catalog.getInstances("my-service-1")).containsExactly(instance);
+    }
+
+    @Test
+    public void unchangedMembersKeepTheirInstanceAndServer() {
+        final AtomixServerList serverList = new AtomixServerList(catalog);
+        serverList.initWithNiwsConfig(DefaultClientConfigImpl.getClientConfigWithDefaultValues("my-service-1"));
+
+        final ServiceInstance instance = catalog.getInstances("my-service-1").get(0);
+        final AtomixServer server = serverList.getInitialListOfServers().get(0);
+        final Member member = ((AtomixServiceInstance) instance).getMember();
+
+        // the same member delivered again
+        catalog.onMembershipChanged(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_UPDATED, copy(member, member.metadata())));
+        assertThat(catalog.getInstances("my-service-1")).containsExactly(instance);
+        assertThat(serverList.getUpdatedListOfServers()).containsExactly(server);
+
+        // a full rebuild
+        catalog.rebuild();
+        assertThat(catalog.getInstances("my-service-1")).containsExactly(instance);
+        assertThat(serverList.getUpdatedListOfServers()).containsExactly(server);
+
+        // a change of an other member
+        final ServiceInstance other = catalog.getInstances("my-service-2").get(0);
+        final Member otherMember = ((AtomixServiceInstance) other).getMember();
+        final Map<String, String> metadata = new HashMap<>(otherMember.metadata());
+        metadata.put("version", "2");
+
+        catalog.onMembershipChanged(new ClusterMembershipEvent(ClusterMembershipEvent.Type.MEMBER_UPDATED, copy(otherMember, metadata)));
+        assertThat(catalog.getInstances("my-service-2").get(0)).isNotSameAs(other);
+        assertThat(catalog.getInstances("my-service-1")).containsExactly(instance);
+        assertThat(serverList.getUpdatedListOfServers()).containsExactly(server);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static Member copy(Member member, Map<String, String> metadata) {
+        return Member.builder(member.id().id())
+            .withAddress(member.address().host(), member.address().port())
+            .withType(member.type())
+            .withMetadata(metadata)
+            .build();
+    }
+}
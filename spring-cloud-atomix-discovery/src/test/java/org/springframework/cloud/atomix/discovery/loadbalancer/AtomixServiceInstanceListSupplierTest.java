@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixService;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.atomix.discovery.AtomixServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.Disposable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixServiceInstanceListSupplierTest {
+    @Rule
+    public final AtomixService service = new AtomixService(c -> {
+        c.client("s1i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+    });
+
+    private TrackingCatalog catalog;
+
+    @Before
+    public void setUp() throws Exception {
+        catalog = new TrackingCatalog(service.atomix(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        // wait for the first instance to be indexed
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (catalog.getInstances("my-service-1").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        catalog.stop();
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void emitsOnSubscribeAndOnChangesOfTheService() throws Exception {
+        final AtomixServiceInstanceListSupplier supplier = new AtomixServiceInstanceListSupplier(catalog, "my-service-1");
+        final BlockingQueue<List<ServiceInstance>> lists = new LinkedBlockingQueue<>();
+        final Disposable subscription = supplier.get().subscribe(lists::add);
+
+        assertThat(next(lists)).extracting(AtomixServiceInstanceListSupplierTest::memberId).containsOnly("s1i1");
+
+        // another service changes
+        service.client("s2i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-2"));
+
+        assertThat(lists.poll(500, TimeUnit.MILLISECONDS)).isNull();
+
+        service.client("s1i2", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+
+        assertThat(next(lists)).extracting(AtomixServiceInstanceListSupplierTest::memberId).containsOnly("s1i1", "s1i2");
+        assertThat(lists.poll(500, TimeUnit.MILLISECONDS)).isNull();
+
+        subscription.dispose();
+    }
+
+    @Test
+    public void listenerRemovedOnDispose() throws Exception {
+        final AtomixServiceInstanceListSupplier supplier = new AtomixServiceInstanceListSupplier(catalog, "my-service-1");
+        final BlockingQueue<List<ServiceInstance>> lists = new LinkedBlockingQueue<>();
+
+        final Disposable s1 = supplier.get().subscribe(lists::add);
+        final Disposable s2 = supplier.get().subscribe(lists::add);
+
+        // the flux is shared among the subscribers
+        assertThat(catalog.listeners).hasSize(1);
+        assertThat(next(lists)).hasSize(1);
+        assertThat(next(lists)).hasSize(1);
+
+        s1.dispose();
+        assertThat(catalog.listeners).hasSize(1);
+
+        s2.dispose();
+        assertThat(catalog.listeners).isEmpty();
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static List<ServiceInstance> next(BlockingQueue<List<ServiceInstance>> lists) throws InterruptedException {
+        final List<ServiceInstance> list = lists.poll(10, TimeUnit.SECONDS);
+
+        assertThat(list).isNotNull();
+
+        return list;
+    }
+
+    private static String memberId(ServiceInstance instance) {
+        return ((AtomixServiceInstance) instance).getMember().id().id();
+    }
+
+    private static final class TrackingCatalog extends AtomixServiceCatalog {
+        private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+        TrackingCatalog(AtomixClient client, AtomixDiscoveryConfiguration properties) {
+            super(client, properties);
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+            listeners.add(listener);
+            super.addListener(listener);
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+            listeners.remove(listener);
+            super.removeListener(listener);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.reactive.ExecutionContext;
+import com.netflix.loadbalancer.reactive.ExecutionInfo;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class AtomixLatencyAwareRuleTest {
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void choosesTheCheapestOfTwo() {
+        final Server slow = new Server("slow", 8080);
+        final Server fast = new Server("fast", 8080);
+
+        final AtomixLatencyAwareRule rule = new AtomixLatencyAwareRule();
+        final BaseLoadBalancer lb = loadBalancer(rule, slow, fast);
+
+        rule.noteResponseTime(slow, 100, TimeUnit.MILLISECONDS);
+        rule.noteResponseTime(fast, 10, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rule.choose(null)).isSameAs(fast);
+        }
+
+        // the in-flight requests weigh on the cost
+        for (int i = 0; i < 20; i++) {
+            lb.getLoadBalancerStats().incrementActiveRequestsCount(fast);
+        }
+
+        assertThat(rule.choose(null)).isSameAs(slow);
+    }
+
+    @Test
+    public void serversWithoutSamplesAreWeightedByTheirInFlightRequests() {
+        final Server busy = new Server("busy", 8080);
+        final Server idle = new Server("idle", 8080);
+
+        final AtomixLatencyAwareRule rule = new AtomixLatencyAwareRule();
+        final BaseLoadBalancer lb = loadBalancer(rule, busy, idle);
+
+        lb.getLoadBalancerStats().incrementActiveRequestsCount(busy);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rule.choose(null)).isSameAs(idle);
+        }
+    }
+
+    @Test
+    public void listenerRecordsTheResponseTimeOfEachAttempt() throws Exception {
+        final Server slow = new Server("slow", 8080);
+        final Server fast = new Server("fast", 8080);
+
+        final AtomixLatencyAwareRule rule = new AtomixLatencyAwareRule();
+        loadBalancer(rule, slow, fast);
+
+        final ExecutionContext<Object> slowContext = new ExecutionContext<>(null, null, null, null);
+        rule.onStartWithServer(slowContext, ExecutionInfo.create(slow, 0, 0));
+        Thread.sleep(50);
+        rule.onExceptionWithServer(slowContext, new RuntimeException("timeout"), ExecutionInfo.create(slow, 0, 0));
+
+        final ExecutionContext<Object> fastContext = new ExecutionContext<>(null, null, null, null);
+        rule.onStartWithServer(fastContext, ExecutionInfo.create(fast, 0, 0));
+        rule.onExecutionSuccess(fastContext, null, ExecutionInfo.create(fast, 0, 0));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rule.choose(null)).isSameAs(fast);
+        }
+    }
+
+    @Test
+    public void ewmaDecaysWithTheWindow() {
+        final AtomixLatencyAwareRule.Ewma ewma = new AtomixLatencyAwareRule.Ewma();
+
+        ewma.update(100, 1, WINDOW);
+        assertThat(ewma.get()).isCloseTo(100, within(0.1));
+
+        // a sample taken right after the previous one barely moves the average
+        ewma.update(10, 1 + WINDOW / 1000, WINDOW);
+        assertThat(ewma.get()).isGreaterThan(99);
+
+        // a sample taken many windows later replaces it
+        ewma.update(10, 1 + 20 * WINDOW, WINDOW);
+        assertThat(ewma.get()).isCloseTo(10, within(0.1));
+    }
+
+    @Test
+    public void decayWindowFromTheClientConfig() {
+        final DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setProperty(AtomixLatencyAwareRule.DECAY_WINDOW, "2500");
+
+        final AtomixLatencyAwareRule rule = new AtomixLatencyAwareRule();
+        rule.initWithNiwsConfig(config);
+
+        assertThat(rule.getDecayWindow(TimeUnit.MILLISECONDS)).isEqualTo(2500);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static BaseLoadBalancer loadBalancer(AtomixLatencyAwareRule rule, Server... servers) {
+        final BaseLoadBalancer lb = new BaseLoadBalancer();
+
+        lb.setRule(rule);
+        lb.setServersList(Arrays.asList(servers));
+
+        return lb;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.DefaultLoadBalancerRetryHandler;
+import com.netflix.client.RetryHandler;
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.RoundRobinRule;
+import com.netflix.loadbalancer.Server;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixService;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerContext;
+import org.springframework.cloud.netflix.ribbon.RibbonStatsRecorder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixRibbonClientAutoConfigurationTest {
+    private static final Server SLOW = new Server("slow", 8080);
+    private static final Server FAST = new Server("fast", 8080);
+
+    @Rule
+    public final AtomixService service = new AtomixService();
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void latencyAwareRuleRecordsTheRibbonResponseTimes() {
+        runner()
+            .withPropertyValues("ribbon.atomix.rule=latency-aware")
+            .run(context -> {
+                    assertThat(context).getBean(IRule.class).isInstanceOf(AtomixLatencyAwareRule.class);
+                    assertThat(context).getBean(RibbonLoadBalancerContext.class).isInstanceOf(AtomixLatencyAwareLoadBalancerContext.class);
+
+                    final AtomixLatencyAwareRule rule = context.getBean(AtomixLatencyAwareRule.class);
+                    final RibbonLoadBalancerContext lbContext = context.getBean(RibbonLoadBalancerContext.class);
+
+                    // the way the load balanced RestTemplate reports a request
+                    final RibbonStatsRecorder slow = new RibbonStatsRecorder(lbContext, SLOW);
+                    Thread.sleep(50);
+                    slow.recordStats(new RuntimeException("timeout"));
+
+                    new RibbonStatsRecorder(lbContext, FAST).recordStats((Object) null);
+
+                    assertThat(rule.getResponseTime(SLOW, TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+                    assertThat(rule.getResponseTime(FAST, TimeUnit.MILLISECONDS)).isLessThan(50);
+
+                    for (int i = 0; i < 10; i++) {
+                        assertThat(rule.choose(null)).isSameAs(FAST);
+                    }
+                }
+            );
+    }
+
+    @Test
+    public void zoneAffinityRule() {
+        runner()
+            .withPropertyValues("ribbon.atomix.rule=zone-affinity")
+            .run(context -> {
+                    assertThat(context).getBean(IRule.class).isInstanceOf(AtomixZoneAffinityRule.class);
+                    assertThat(context).doesNotHaveBean(RibbonLoadBalancerContext.class);
+                }
+            );
+    }
+
+    @Test
+    public void noRuleByDefault() {
+        runner()
+            .run(context -> {
+                    assertThat(context).doesNotHaveBean(IRule.class);
+                    assertThat(context).doesNotHaveBean(RibbonLoadBalancerContext.class);
+                }
+            );
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private ApplicationContextRunner runner() {
+        return new ApplicationContextRunner()
+            .withConfiguration(
+                AutoConfigurations.of(
+                    AtomixRibbonClientAutoConfiguration.class
+                )
+            )
+            .withUserConfiguration(ClientConfiguration.class)
+            .withInitializer(context -> context.getBeanFactory().registerSingleton("atomix-client", service.atomix()))
+            .withPropertyValues(
+                "ribbon.client.name=my-service"
+            );
+    }
+
+    @Configuration
+    static class ClientConfiguration {
+        @Bean
+        public IClientConfig clientConfig() {
+            return DefaultClientConfigImpl.getClientConfigWithDefaultValues("my-service");
+        }
+
+        @Bean
+        public AtomixServiceCatalog catalog(AtomixClient client) {
+            return new AtomixServiceCatalog(client, new AtomixDiscoveryConfiguration());
+        }
+
+        @Bean
+        public RetryHandler retryHandler(IClientConfig config) {
+            return new DefaultLoadBalancerRetryHandler(config);
+        }
+
+        @Bean
+        public ILoadBalancer loadBalancer(ObjectProvider<IRule> rule) {
+            final BaseLoadBalancer lb = new BaseLoadBalancer();
+
+            lb.setRule(rule.getIfAvailable(RoundRobinRule::new));
+            lb.setServersList(Arrays.asList(SLOW, FAST));
+
+            return lb;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixService;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixServerListUpdaterTest {
+    @Rule
+    public final AtomixService service = new AtomixService(c -> {
+        c.client("s1i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+    });
+
+    private TrackingCatalog catalog;
+    private AtomixServerListUpdater updater;
+    private BlockingQueue<Long> updates;
+
+    @Before
+    public void setUp() throws Exception {
+        catalog = new TrackingCatalog(service.atomix(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        // wait for the first instance to be indexed
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (catalog.getInstances("my-service-1").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        updates = new LinkedBlockingQueue<>();
+        updater = new AtomixServerListUpdater(catalog, "my-service-1");
+        updater.start(() -> updates.add(System.nanoTime()));
+
+        // the updater catches up on start
+        assertThat(updates.poll()).isNotNull();
+        assertThat(catalog.listeners).containsExactly(updater);
+    }
+
+    @After
+    public void tearDown() {
+        updater.stop();
+        catalog.stop();
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void catalogChangeTriggersAnUpdate() throws Exception {
+        service.client("s1i2", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+
+        assertThat(updates.poll(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(catalog.getInstances("my-service-1")).hasSize(2);
+    }
+
+    @Test
+    public void unrelatedServicesDoNotTriggerUpdates() throws Exception {
+        service.client("s2i1", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-2"));
+
+        awaitInstances("my-service-2");
+
+        assertThat(updates.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void stopUnregistersTheListener() throws Exception {
+        updater.stop();
+
+        assertThat(catalog.listeners).isEmpty();
+
+        service.client("s1i2", ImmutableMap.of(AtomixConstants.META_SERVICE_ID, "my-service-1"));
+
+        awaitInstances("my-service-1", 2);
+
+        assertThat(updates.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private void awaitInstances(String serviceId) throws InterruptedException {
+        awaitInstances(serviceId, 1);
+    }
+
+    private void awaitInstances(String serviceId, int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (catalog.getInstances(serviceId).size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(catalog.getInstances(serviceId)).hasSize(count);
+    }
+
+    private static final class TrackingCatalog extends AtomixServiceCatalog {
+        private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+        TrackingCatalog(AtomixClient client, AtomixDiscoveryConfiguration properties) {
+            super(client, properties);
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+            listeners.add(listener);
+            super.addListener(listener);
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+            listeners.remove(listener);
+            super.removeListener(listener);
+        }
+    }
+}
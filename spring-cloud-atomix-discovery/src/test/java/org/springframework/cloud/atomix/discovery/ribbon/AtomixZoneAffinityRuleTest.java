@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.discovery.ribbon;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixZoneAffinityRuleTest {
+    @Test
+    public void prefersTheLocalZone() {
+        final Server a = server("a", "z1");
+        final Server b = server("b", "z2");
+        final Server c = server("c", "z2");
+
+        final AtomixZoneAffinityRule rule = new AtomixZoneAffinityRule("z1", null);
+        final BaseLoadBalancer lb = loadBalancer(rule, a, b, c);
+
+        assertThat(choose(rule, 10)).containsOnly(a);
+    }
+
+    @Test
+    public void tiersFollowTheServerListUpdates() {
+        final Server a = server("a", "z1");
+        final Server b = server("b", "z2");
+        final Server c = server("c", "z2");
+        final Server d = server("d", "z1");
+
+        final AtomixZoneAffinityRule rule = new AtomixZoneAffinityRule("z1", null);
+        final BaseLoadBalancer lb = loadBalancer(rule, a, b, c);
+
+        assertThat(choose(rule, 10)).containsOnly(a);
+
+        lb.setServersList(Arrays.asList(b, c));
+        assertThat(choose(rule, 10)).containsOnly(b, c);
+
+        lb.setServersList(Arrays.asList(b, d));
+        assertThat(choose(rule, 10)).containsOnly(d);
+
+        rule.setZone("z2");
+        assertThat(choose(rule, 10)).containsOnly(b);
+    }
+
+    @Test
+    public void tiersFollowTheServerStatus() {
+        final ToggledServer a = new ToggledServer("a", "z1");
+        final ToggledServer b = new ToggledServer("b", "z1");
+        final Server c = server("c", "z2");
+
+        final AtomixZoneAffinityRule rule = new AtomixZoneAffinityRule("z1", null);
+        loadBalancer(rule, a, b, c);
+
+        assertThat(choose(rule, 10)).containsOnly(a, b);
+
+        // like an atomix server, the status changes without notifying the load balancer
+        a.alive = false;
+        assertThat(choose(rule, 10)).containsOnly(b);
+
+        b.alive = false;
+        assertThat(choose(rule, 10)).doesNotContain(a, b);
+
+        a.alive = true;
+        b.alive = true;
+        assertThat(choose(rule, 10)).containsOnly(a, b);
+    }
+
+    @Test
+    public void busyZoneSpillsOver() {
+        final Server a = server("a", "z1");
+        final Server b = server("b", "z2");
+
+        final DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setProperty(AtomixZoneAffinityRule.MAX_ACTIVE_REQUESTS_PER_SERVER, "-1");
+
+        final AtomixZoneAffinityRule rule = new AtomixZoneAffinityRule("z1", null);
+        rule.initWithNiwsConfig(config);
+
+        loadBalancer(rule, a, b);
+
+        assertThat(choose(rule, 10)).containsOnly(a, b);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static Server server(String host, String zone) {
+        final Server server = new Server(host, 8080);
+        server.setZone(zone);
+
+        return server;
+    }
+
+    private static final class ToggledServer extends Server {
+        private volatile boolean alive = true;
+
+        ToggledServer(String host, String zone) {
+            super(host, 8080);
+            setZone(zone);
+        }
+
+        @Override
+        public boolean isAlive() {
+            return alive;
+        }
+    }
+
+    private static BaseLoadBalancer loadBalancer(AtomixZoneAffinityRule rule, Server... servers) {
+        final BaseLoadBalancer lb = new BaseLoadBalancer();
+
+        lb.setRule(rule);
+        lb.setServersList(Arrays.asList(servers));
+
+        return lb;
+    }
+
+    private static Set<Server> choose(AtomixZoneAffinityRule rule, int times) {
+        final Set<Server> chosen = new HashSet<>();
+
+        for (int i = 0; i < times; i++) {
+            chosen.add(rule.choose(null));
+        }
+
+        return chosen;
+    }
+}
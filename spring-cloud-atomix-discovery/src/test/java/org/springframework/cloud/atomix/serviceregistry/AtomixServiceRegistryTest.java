@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.atomix.serviceregistry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.atomix.cluster.Member;
+import io.atomix.cluster.MemberConfig;
+import io.atomix.utils.net.Address;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.cloud.atomix.AtomixAutoConfiguration;
+import org.springframework.cloud.atomix.AtomixClient;
+import org.springframework.cloud.atomix.AtomixConfiguration;
+import org.springframework.cloud.atomix.AtomixConstants;
+import org.springframework.cloud.atomix.discovery.AtomixDiscoveryConfiguration;
+import org.springframework.cloud.atomix.discovery.AtomixService;
+import org.springframework.cloud.atomix.discovery.AtomixServiceCatalog;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.util.SocketUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtomixServiceRegistryTest {
+    private static final Duration WINDOW = Duration.ofMillis(200);
+
+    @Rule
+    public final AtomixService service = new AtomixService();
+
+    private AtomixServiceCatalog catalog;
+    private AtomixClient client;
+    private AtomixServiceRegistry registry;
+
+    @Before
+    public void setUp() {
+        // the peer
+        catalog = new AtomixServiceCatalog(service.atomix(), new AtomixDiscoveryConfiguration());
+        catalog.start();
+
+        // the registering member, created as the auto configuration does
+        final Member peer = service.atomix().getLocalMember();
+        final MemberConfig member = new MemberConfig();
+        member.setId(peer.id().id());
+        member.setAddress(Address.from("localhost:" + peer.address().port()));
+        member.setType(Member.Type.PERSISTENT);
+
+        final AtomixConfiguration configuration = new AtomixConfiguration();
+        configuration.getLocalMember().setAddress(Address.from("localhost:" + SocketUtils.findAvailableTcpPort()));
+        configuration.getLocalMember().getMetadata().put("team", "configured");
+        configuration.getMembers().add(member);
+
+        client = AtomixAutoConfiguration.createAtomixClient(configuration);
+        client.start();
+
+        final AtomixServiceRegistryConfiguration registryConfiguration = new AtomixServiceRegistryConfiguration();
+        registryConfiguration.setPropagationWindow(WINDOW);
+
+        registry = new AtomixServiceRegistry(client, registryConfiguration);
+    }
+
+    @After
+    public void tearDown() {
+        registry.close();
+        client.stop();
+        catalog.stop();
+    }
+
+    // *****************
+    // Tests
+    // *****************
+
+    @Test
+    public void drainingInstanceIsDroppedByThePeer() throws Exception {
+        final Registration registration = registration(Collections.emptyMap());
+
+        registry.register(registration);
+
+        await(() -> catalog.getInstances("my-service").size() == 1);
+        assertThat(registry.getPropagations()).isEqualTo(1);
+
+        registry.setStatus(registration, AtomixConstants.STATUS_DRAINING);
+
+        await(() -> catalog.getInstances("my-service").isEmpty());
+        assertThat(registry.getPropagations()).isEqualTo(2);
+    }
+
+    @Test
+    public void onePropagationPerWindow() throws Exception {
+        final Registration registration = registration(Collections.emptyMap());
+
+        registry.register(registration);
+        registry.setStatus(registration, AtomixConstants.STATUS_OUT_OF_SERVICE);
+        registry.setStatus(registration, AtomixConstants.STATUS_DRAINING);
+        registry.setStatus(registration, AtomixConstants.STATUS_UP);
+
+        // not propagated yet
+        assertThat(registry.getPropagations()).isEqualTo(0);
+        assertThat((String) registry.getStatus(registration)).isEqualTo(AtomixConstants.STATUS_UP);
+
+        await(() -> registry.getPropagations() == 1);
+        await(() -> catalog.getInstances("my-service").size() == 1);
+
+        Thread.sleep(WINDOW.toMillis() * 2);
+
+        assertThat(registry.getPropagations()).isEqualTo(1);
+    }
+
+    @Test
+    public void configuredMetadataIsKept() throws Exception {
+        final Map<String, String> metadata = client.getLocalMember().metadata();
+        final Registration registration = registration(Collections.singletonMap("team", "registration"));
+
+        registry.register(registration);
+        registry.flush();
+
+        assertThat(metadata).containsEntry("team", "configured");
+        assertThat(metadata).containsEntry(AtomixConstants.META_SERVICE_ID, "my-service");
+
+        registry.deregister(registration);
+        registry.flush();
+
+        assertThat(metadata).containsEntry("team", "configured");
+        assertThat(metadata).doesNotContainKeys(AtomixConstants.META_SERVICE_ID, AtomixConstants.META_SERVICE_STATUS);
+    }
+
+    @Test
+    public void pendingUpdateCannotOverwriteDraining() throws Exception {
+        final Registration registration = registration(Collections.emptyMap());
+
+        client.getConfiguration().getDrain().setPropagationDelay(Duration.ofMillis(100));
+
+        // still pending when the client is stopped
+        registry.register(registration);
+        assertThat(registry.getPropagations()).isEqualTo(0);
+
+        client.stop();
+
+        final Map<String, String> metadata = client.getLocalMember().metadata();
+
+        assertThat(registry.getPropagations()).isEqualTo(1);
+        assertThat(metadata).containsEntry(AtomixConstants.META_SERVICE_STATUS, AtomixConstants.STATUS_DRAINING);
+
+        registry.setStatus(registration, AtomixConstants.STATUS_UP);
+        Thread.sleep(WINDOW.toMillis() * 2);
+
+        assertThat(metadata).containsEntry(AtomixConstants.META_SERVICE_STATUS, AtomixConstants.STATUS_DRAINING);
+    }
+
+    // *****************
+    // Helpers
+    // *****************
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static Registration registration(Map<String, String> metadata) {
+        return new Registration() {
+            @Override
+            public String getServiceId() {
+                return "my-service";
+            }
+
+            @Override
+            public String getHost() {
+                return "localhost";
+            }
+
+            @Override
+            public int getPort() {
+                return 8080;
+            }
+
+            @Override
+            public boolean isSecure() {
+                return false;
+            }
+
+            @Override
+            public URI getUri() {
+                return URI.create("http://localhost:8080");
+            }
+
+            @Override
+            public Map<String, String> getMetadata() {
+                return metadata;
+            }
+        };
+    }
+}